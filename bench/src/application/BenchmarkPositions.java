@@ -0,0 +1,31 @@
+package application;
+
+// The fixed positions the benchmarks run over, covering each phase of the game.
+// Nate Hunter - 10/16/2026
+public class BenchmarkPositions {
+	// The initial position of a standard game.
+	public static final String OPENING = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+	// A busy middlegame with pins, castling on both sides, and en passant (Kiwipete).
+	public static final String MIDDLEGAME = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+	// A rook and pawn endgame.
+	public static final String ENDGAME = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+
+	// Gets the position for a game phase ("opening", "middlegame", or "endgame").
+	public static Position get(String phase) {
+		switch (phase) {
+		case "opening": return Position.fromFen(OPENING);
+		case "middlegame": return Position.fromFen(MIDDLEGAME);
+		case "endgame": return Position.fromFen(ENDGAME);
+		default: throw new IllegalArgumentException("Unknown game phase: " + phase);
+		}
+	}
+
+	// Gets the first legal move of the position.
+	public static Move firstLegalMove(Position position) {
+		position.computeAllMoves();
+		for (Move move : position.moves)
+			if (position.nextPosition(move).valid())
+				return move;
+		throw new IllegalStateException("The position has no legal moves.");
+	}
+}
@@ -0,0 +1,46 @@
+package application;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// Benchmarks the leaf evaluation of Bot and growing position trees.
+// Nate Hunter - 10/16/2026
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BotBenchmark {
+	// The game phase of the position benchmarked.
+	@Param({"opening", "middlegame", "endgame"})
+	public String phase;
+
+	private Position position;
+	private Bot bot;
+
+	@Setup
+	public void setup() {
+		position = BenchmarkPositions.get(phase);
+		position.computeAllMoves();
+		bot = new Bot();
+	}
+
+	@Benchmark
+	public int bestMaterialValueToGrab() {
+		return bot.bestMaterialValueToGrab(position);
+	}
+
+	// Grows complete position trees; the depth is a nested state so each depth is reported separately.
+	@State(Scope.Thread)
+	public static class TreeDepth {
+		@Param({"1", "2", "3"})
+		public int depth;
+	}
+
+	@Benchmark
+	public PositionTree growPositionTree(TreeDepth treeDepth) {
+		return PositionTree.grow(position.copy(), treeDepth.depth);
+	}
+}
@@ -0,0 +1,48 @@
+package application;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// Benchmarks constructing and notating moves.
+// Nate Hunter - 10/16/2026
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoveBenchmark {
+	// The game phase of the position benchmarked.
+	@Param({"opening", "middlegame", "endgame"})
+	public String phase;
+
+	private Position position;
+	private Move move;
+
+	@Setup
+	public void setup() {
+		position = BenchmarkPositions.get(phase);
+		move = BenchmarkPositions.firstLegalMove(position);
+	}
+
+	// Constructs a move object from an encoded move (notation is deferred until it is displayed).
+	@Benchmark
+	public Move construct() {
+		return position.toMove(move.pack());
+	}
+
+	// Notates a move, as done for moves shown in the log.
+	@Benchmark
+	public String notate() {
+		return construct().getNotation();
+	}
+
+	// Distinguishes the notation of a move from the other moves of the position, as done for logged moves.
+	@Benchmark
+	public String distinguishNotation() {
+		Move loggedMove = construct();
+		loggedMove.distinguishNotation(position.moves);
+		return loggedMove.getNotation();
+	}
+}
@@ -0,0 +1,65 @@
+package application;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// Benchmarks move generation and move playing in Position.
+// Nate Hunter - 10/16/2026
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PositionBenchmark {
+	// The game phase of the position benchmarked.
+	@Param({"opening", "middlegame", "endgame"})
+	public String phase;
+
+	private Position position;
+	private Move move;
+	private final MoveList moves = new MoveList();
+
+	@Setup
+	public void setup() {
+		position = BenchmarkPositions.get(phase);
+		move = BenchmarkPositions.firstLegalMove(position);
+	}
+
+	@Benchmark
+	public List<Move> computeAllMoves() {
+		position.computeAllMoves();
+		return position.moves;
+	}
+
+	// Generates encoded moves into a reused list, as the Bot search does for every node.
+	@Benchmark
+	public int generateMoves() {
+		position.generateMoves(moves);
+		return moves.size();
+	}
+
+	@Benchmark
+	public Position copy() {
+		return position.copy();
+	}
+
+	// Copies the position and plays a move on the copy, as PositionTree does for every node.
+	@Benchmark
+	public Position copyAndPlayMove() {
+		Position nextPosition = position.copy();
+		nextPosition.playMove(move);
+		return nextPosition;
+	}
+
+	// Plays a move in place and takes it back, as the Bot search does for every node.
+	@Benchmark
+	public long makeAndUnmakeMove() {
+		position.makeMove(move);
+		long key = position.getKey();
+		position.unmakeMove(move);
+		return key;
+	}
+}
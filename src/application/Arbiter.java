@@ -1,109 +1,68 @@
 package application;
 
-import java.util.Collection;
-
 import javafx.application.Platform;
 
-// Manages the flow of the chess game.
+// Manages the flow of the chess game played in the GUI: turns clicks into moves of the game session,
+// and redraws the board and log whenever the game changes.
 // Nate Hunter - 03/13/2022
 public class Arbiter {
 	// Whether white is a human player or a bot.
 	private static final boolean WHITE_HUMAN = true;
 	// Whether black is a human player or a bot.
 	private static final boolean BLACK_HUMAN = false;
+	// The opening book for the bot, if one is set with the system properties book and book.keys
+	// (see PolyglotBook), or null to have the bot search from the first move.
+	private static final PolyglotBook OPENING_BOOK = PolyglotBook.fromSystemProperties();
 	
+	// The game being played. It is the only game of the program, so the bot searches with every core.
+	public final GameSession session = new GameSession(WHITE_HUMAN, BLACK_HUMAN, GameSession.DEFAULT_SEARCH_DEPTH,
+		Bot.DEFAULT_THREADS, GameSession.DEFAULT_HASH_MEGABYTES);
+	// The chess board displaying the game.
+	public final Board board = new Board(this);
+	// The log displaying the moves of the game and the calculations of the bot.
+	public final Log log = new Log();
 	// The source square for a pending move.
-	private static Coordinate source = Coordinate.getInvalid();
+	private Coordinate source = Coordinate.getInvalid();
+	
+	// Creates an arbiter for a new game.
+	// The bot plays its moves on a search thread, so redrawing is handed back to the JavaFX application thread,
+	// which keeps the window responsive while the bot thinks.
+	public Arbiter() {
+		session.setOpeningBook(OPENING_BOOK);
+		session.setChangeListener(changedSession -> Platform.runLater(this::update));
+	}
 	
 	// Responds to the click of a square by selecting the square, moving a piece,
 	// or doing nothing (depending on the square and game state).
-	public static void processClick(Coordinate location) {
+	public void processClick(Coordinate location) {
 		// Ensure it is a human's turn.
-		if (!humanToMove())
+		if (!session.humanToMove())
 			return;
 		
 		boolean pieceAlreadySelected = source.inbounds();
 		if (pieceAlreadySelected) {
 			// The click corresponds to the intended target of a move.
-			playMoveIfLegal(source, location);
+			// Pawns promote to queens when moved by clicking.
+			// The session has the bot reply if appropriate.
+			session.playMoveIfLegal(source, location, Piece.Type.QUEEN);
 			
 			// Deselect the selected square.
-			Board.getSquare(source).deselect();
+			board.getSquare(source).deselect();
 			source = Coordinate.getInvalid();
 		}
 		else {
 			// Select the square clicked if it holds a piece of the active color.
-			char pieceClicked = Position.current.getPiece(location);
-			if (Piece.isActive(pieceClicked, Position.current.whiteToMove)) {
-				Board.getSquare(location).select();
+			char pieceClicked = session.getPiece(location);
+			if (Piece.isActive(pieceClicked, session.whiteToMove())) {
+				board.getSquare(location).select();
 				source = location;
 			}
 		}
 	}
 	
-	// Plays a move if it is legal.
-	private static void playMoveIfLegal(Move move) {
-		playMoveIfLegal(move.source, move.target);
-	}
-	private static void playMoveIfLegal(Coordinate source, Coordinate target) {
-		// Determine whether the move is legal.
-		Move move = null;
-		// A depth of 2 is necessary to evaluate checkmate/stalemate for each move.
-		PositionTree positionTree = PositionTree.grow(Position.current, 2);
-		Collection<Move> legalMoves = positionTree.getLegalMoves();
-		for (Move legalMove : legalMoves)
-			if (legalMove.matches(source, target)) {
-				move = legalMove;
-				break;
-			}
-		boolean moveLegal = (move != null);
-		if (moveLegal) {
-			// Log the move.
-			if (Position.current.whiteToMove)
-				Log.appendToHistory("" + Position.current.moveNumber + '.');
-			move.distinguishNotation(legalMoves);
-			Log.appendToHistory(move.notation);
-			// Check if the game has ended.
-			boolean gameOver = false;
-			PositionTree.Status gameStatus = positionTree.futureBranches.get(move).status;
-			switch (gameStatus) {
-			case CHECKMATE:
-				Log.appendToHistory(Position.current.whiteToMove ? "1-0" : "0-1");
-				gameOver = true;
-				break;
-			case STALEMATE:
-				Log.appendToHistory("0.5-0.5");
-				gameOver = true;
-				break;
-			default: break;
-			}
-			
-			// Play the move.
-			// Playing the move switches whose turn it is, so it is done after logging the move.
-			Position.current.playMove(move);
-			Board.update();
-			
-			// Instruct the bot to play a move if appropriate.
-			if (!gameOver)
-				playBotMoveIfAppropriate();
-		}
-	}
-	
-	// Plays a bot move if appropriate.
-	public static void playBotMoveIfAppropriate() {
-		if (!humanToMove())
-			// A separate thread is created so the program does not freeze while the bot thinks.
-			Platform.runLater(new Runnable() {
-				@Override
-				public void run () {
-					Move botMove = new Bot().move();
-					playMoveIfLegal(botMove);
-				}
-			});
-	}
-	
-	// Determines whether it is a human or a bot to play next.
-	private static boolean humanToMove() {
-		return Position.current.whiteToMove ? WHITE_HUMAN : BLACK_HUMAN;
+	// Updates the board and log with the game.
+	private void update() {
+		board.update(session.getPosition());
+		log.update(session.getHistory(), session.getCalculations());
 	}
 }
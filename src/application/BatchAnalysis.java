@@ -0,0 +1,237 @@
+package application;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Analyzes every position of an EPD or FEN file with the bot, using all cores, e.g. to run test suites
+// such as WAC or to sweep many positions for changes in the bot's choices.
+//
+// Positions are analyzed in parallel on a fork-join pool, with single-threaded bots (one per position),
+// and the results are written in the order of the input. The file is read as the analysis goes, and only
+// a bounded window of positions is in flight at once (read but not yet written), so memory stays flat
+// no matter how many lines the file has. A slow position holds up the writing (but not the analysis)
+// of the positions after it, until the window is full.
+//
+// Each line is a FEN, or an EPD: the first four FEN fields followed by operations such as "bm Qg6;".
+// When a line has best move (bm) or avoid move (am) operations, the bot's move is checked against them,
+// and the number of positions solved is reported at the end. Each position is searched with a cleared
+// transposition table, and the bot plays the first move of its principal variation rather than a random
+// choice among equal moves, so results do not depend on the order or the number of threads, and the score
+// reported is the score of the move reported.
+// Usage:
+//		BatchAnalysis [-depth N] [-nodes N] [-threads N] [-hash MB] [-window N] <input file> [output file]
+// Nate Hunter - 10/17/2026
+public class BatchAnalysis {
+	// The default search depth (the maximum depth with a node limit).
+	private static final int DEFAULT_DEPTH = 4;
+	// The default transposition table size of each thread in megabytes. Each table is cleared before
+	// every position, so a small table keeps the clearing cheap.
+	private static final int DEFAULT_HASH_MEGABYTES = 4;
+	// The default number of positions in flight per thread, enough to keep every thread busy
+	// while the oldest position is still being analyzed.
+	private static final int WINDOW_PER_THREAD = 16;
+	// Matches the best move and avoid move operations of an EPD line.
+	private static final Pattern MOVE_OPERATION = Pattern.compile("\\b(bm|am)\\s+([^;]+);");
+
+	// The result of analyzing one line.
+	private static class Result {
+		// The line written to the output.
+		String output;
+		// Whether the line has bm or am operations, and whether the bot's move satisfied them.
+		boolean tested;
+		boolean solved;
+		// The positions visited by the search.
+		long nodes;
+	}
+
+	// The search depth, and the node limit per position (0 for no limit).
+	private final int depth;
+	private final long nodes;
+	// The transposition table of each thread, reused from position to position.
+	private final ThreadLocal<TranspositionTable> threadTables;
+
+	// Creates an analysis searching each position to the specified depth, visiting at most the specified
+	// number of positions (0 for no limit), with a transposition table of the specified size per thread.
+	public BatchAnalysis(int depth, long nodes, int hashMegabytes) {
+		this.depth = depth;
+		this.nodes = nodes;
+		threadTables = ThreadLocal.withInitial(() -> new TranspositionTable(hashMegabytes));
+	}
+
+	public static void main(String[] args) throws IOException {
+		int depth = DEFAULT_DEPTH;
+		long nodes = 0;
+		int threads = Runtime.getRuntime().availableProcessors();
+		int hashMegabytes = DEFAULT_HASH_MEGABYTES;
+		int window = 0;
+		List<String> files = new ArrayList<String>();
+		for (int index = 0; index < args.length; index++) {
+			switch (args[index]) {
+			case "-depth": depth = Integer.parseInt(args[++index]); break;
+			case "-nodes": nodes = Long.parseLong(args[++index]); break;
+			case "-threads": threads = Integer.parseInt(args[++index]); break;
+			case "-hash": hashMegabytes = Integer.parseInt(args[++index]); break;
+			case "-window": window = Integer.parseInt(args[++index]); break;
+			default: files.add(args[index]); break;
+			}
+		}
+		if (files.isEmpty() || files.size() > 2) {
+			System.err.println("Usage: BatchAnalysis [-depth N] [-nodes N] [-threads N] [-hash MB] [-window N] <input file> [output file]");
+			return;
+		}
+		if (window <= 0)
+			window = threads * WINDOW_PER_THREAD;
+		BatchAnalysis analysis = new BatchAnalysis(depth, nodes, hashMegabytes);
+		try (BufferedReader input = Files.newBufferedReader(Paths.get(files.get(0)));
+				Writer output = (files.size() > 1) ? Files.newBufferedWriter(Paths.get(files.get(1)))
+					: new BufferedWriter(new OutputStreamWriter(System.out))) {
+			analysis.run(input, output, threads, window);
+		}
+	}
+
+	// Analyzes every line of the input on the specified number of threads, with at most the specified number
+	// of lines in flight, writing a result line per input line in input order and a summary to standard error.
+	public void run(BufferedReader input, Writer output, int threads, int window) throws IOException {
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		Deque<ForkJoinTask<Result>> inFlight = new ArrayDeque<ForkJoinTask<Result>>();
+		int lines = 0, tested = 0, solved = 0;
+		long totalNodes = 0;
+		// The endgame tables are generated up front, so their cost is not counted in the time of the first position
+		// that reaches them.
+		Bitbase.initialize();
+		long startTime = System.nanoTime();
+		try {
+			String line = input.readLine();
+			while (line != null || !inFlight.isEmpty()) {
+				// Keep the window full while there is input, and otherwise write the oldest result.
+				if (line != null && inFlight.size() < window) {
+					final String inputLine = line;
+					final int lineNumber = ++lines;
+					inFlight.addLast(pool.submit(() -> analyze(inputLine, lineNumber)));
+					line = input.readLine();
+					continue;
+				}
+				Result result = inFlight.removeFirst().join();
+				output.write(result.output);
+				output.write(System.lineSeparator());
+				totalNodes += result.nodes;
+				if (result.tested) {
+					tested++;
+					if (result.solved)
+						solved++;
+				}
+			}
+		} finally {
+			output.flush();
+			pool.shutdownNow();
+		}
+		double seconds = (System.nanoTime() - startTime) / 1e9;
+		System.err.println(String.format("%d lines in %.1f s (%.1f per second), %d nodes (%.0f per second)",
+			lines, seconds, lines / seconds, totalNodes, totalNodes / seconds));
+		if (tested > 0)
+			System.err.println("Solved " + solved + " of " + tested + " positions with bm or am operations");
+	}
+
+	// Analyzes a line, describing the bot's move, its evaluation, the depth reached, the positions visited,
+	// and the time taken, followed by whether it solved the position (if the line has bm or am operations).
+	// Lines that are empty or comments (#) are copied, and lines that are not positions are reported.
+	private Result analyze(String line, int lineNumber) {
+		Result result = new Result();
+		String trimmedLine = line.trim();
+		if (trimmedLine.isEmpty() || trimmedLine.startsWith("#")) {
+			result.output = line;
+			return result;
+		}
+		// Only the first four fields are the position. The rest are EPD operations or FEN move counters.
+		String[] fields = trimmedLine.split("\\s+", 5);
+		Position position;
+		try {
+			position = Position.fromFen(String.join(" ", Arrays.copyOf(fields, Math.min(4, fields.length))));
+		} catch (RuntimeException exception) {
+			result.output = lineNumber + ": error " + exception.getMessage();
+			return result;
+		}
+		String operations = (fields.length > 4) ? fields[4] : "";
+
+		TranspositionTable table = threadTables.get();
+		table.clear();
+		Bot bot = new Bot(depth, 1, table);
+		bot.setNodeLimit(nodes);
+		bot.setRandomMoveChoice(false);
+		// The last completed iteration gives the evaluation and depth of the move played (the first move of its
+		// principal variation, since the move is not chosen at random).
+		long[] lastIteration = new long[2];
+		bot.setIterationListener((iterationDepth, evaluation, iterationNodes, milliseconds, principalVariation) -> {
+			lastIteration[0] = iterationDepth;
+			lastIteration[1] = evaluation;
+			result.nodes = iterationNodes;
+		});
+		long startTime = System.nanoTime();
+		Move bestMove = bot.move(position);
+		long milliseconds = (System.nanoTime() - startTime) / 1000000;
+		StringBuilder output = new StringBuilder().append(lineNumber).append(": ");
+		if (bestMove == null) {
+			result.output = output.append("no move (no legal moves, or stopped before the first iteration)").toString();
+			return result;
+		}
+		String notation = notation(position, bestMove);
+		int evaluation = (int)lastIteration[1];
+		String score;
+		if (Bot.isCheckmateEvaluation(evaluation)) {
+			int moves = (Bot.pliesToCheckmate(evaluation) + 1) / 2;
+			score = "mate " + (evaluation > 0 ? moves : -moves);
+		}
+		else score = "cp " + evaluation * 100;
+		output.append(notation).append(" score ").append(score).append(" depth ").append(lastIteration[0])
+			.append(" nodes ").append(result.nodes).append(" time ").append(milliseconds);
+
+		// Check the move against the best and avoid moves, ignoring check and annotation marks.
+		Matcher matcher = MOVE_OPERATION.matcher(operations);
+		boolean solved = true;
+		while (matcher.find()) {
+			result.tested = true;
+			boolean listed = false;
+			for (String move : matcher.group(2).trim().split("\\s+"))
+				listed |= stripMarks(move).equals(stripMarks(notation));
+			solved &= matcher.group(1).equals("bm") ? listed : !listed;
+			output.append(' ').append(matcher.group(1)).append(' ').append(matcher.group(2).trim());
+		}
+		if (result.tested) {
+			result.solved = solved;
+			output.append(solved ? " solved" : " unsolved");
+		}
+		result.output = output.toString();
+		return result;
+	}
+
+	// Gets the algebraic notation of a move in the position, with its check or checkmate mark.
+	private static String notation(Position position, Move move) {
+		position.computeAllMoves();
+		for (Move legalMove : position.moves)
+			if (legalMove.matches(move.source, move.target, move.getPromotionType())) {
+				PositionTree.Status status = position.nextPosition(legalMove).status();
+				if (status == PositionTree.Status.CHECK)
+					legalMove.notateCheck();
+				else if (status == PositionTree.Status.CHECKMATE)
+					legalMove.notateCheckmate();
+				legalMove.distinguishNotation(position.moves);
+				return legalMove.getNotation();
+			}
+		return move.getNotation();
+	}
+
+	// Removes check and annotation marks (+, #, !, ?) from a move's notation.
+	private static String stripMarks(String notation) {
+		return notation.replaceAll("[+#!?]", "");
+	}
+}
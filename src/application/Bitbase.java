@@ -0,0 +1,390 @@
+package application;
+
+import java.util.stream.IntStream;
+
+// Endgame tables (bitbases) for a lone king against a king and one queen, rook, or pawn (KQK, KRK, KPK),
+// which tell whether a position is won or drawn with perfect play.
+// A material evaluation cannot tell how to make progress in these endings (or whether a pawn ending is
+// won at all), so the search probes the tables instead.
+//
+// The tables are generated by retrograde analysis: starting from the checkmates, positions are marked won
+// for the stronger side going backwards, until no more positions can be marked. A position with the stronger
+// side to move is won if some move reaches a won position, and a position with the lone king to move is won
+// if every move reaches a won position (or it is checkmate). Each pass is split by king square across cores,
+// and after the first pass only the positions with a move to a newly marked position are examined again.
+//
+// The stronger side is always taken to be white in the tables (positions with a black stronger side are
+// mirrored), and a table holds one bit per position, so each table takes 64 KB.
+// The tables are generated by initialize, once per program, which takes about 0.6 s on one core (mostly
+// before the JIT compiler has compiled the generation; compiled, it takes about 0.2 s). Probing never generates them
+// (a probe may come from deep in a timed search), so until then every probe finds nothing.
+// Nate Hunter - 10/17/2026
+public class Bitbase {
+	// The result of a position for the player to move.
+	public static enum Result {
+		// The player to move wins with perfect play.
+		WIN,
+		// The position is drawn with perfect play.
+		DRAW,
+		// The player to move loses with perfect play.
+		LOSS,
+		// The position is not covered by the tables.
+		UNKNOWN
+	}
+
+	// The number of positions in a table: the side to move, the two kings, and the stronger side's piece.
+	private static final int POSITIONS = 2 * 64 * 64 * 64;
+	// The side to move in a table index.
+	private static final int WHITE_TO_MOVE = 0;
+	private static final int BLACK_TO_MOVE = 1;
+	// The progress of every position with a rook, and of every position with a queen (see progress).
+	// A pawn scores at most 4 * 6 for its six steps up the board, so every rook position scores more, and
+	// a rook scores at most 4 * 6 + 2 * 6 for driving the lone king, so every queen position scores more still.
+	// Promoting is then always progress, and promoting to a queen more than to a rook.
+	private static final int ROOK_PROGRESS = 4 * 6 + 1;
+	private static final int QUEEN_PROGRESS = ROOK_PROGRESS + 4 * 6 + 2 * 6 + 1;
+
+	// The tables, indexed by the stronger side's piece type ordinal (null until generated).
+	// Each holds a bit per position (see index), set if the position is won for white.
+	private static volatile long[][] tables;
+
+	// Generates the tables if they have not been generated yet. This must be called before searching
+	// (e.g. at startup, or once a game nears the endings the tables cover), since probes do not generate them.
+	public static void initialize() {
+		if (tables != null)
+			return;
+		synchronized (Bitbase.class) {
+			if (tables != null)
+				return;
+			long[][] generatedTables = new long[Piece.Type.values().length][];
+			long[] queenWins = generate(Piece.Type.QUEEN, null, null);
+			long[] rookWins = generate(Piece.Type.ROOK, null, null);
+			generatedTables[Piece.Type.QUEEN.ordinal()] = queenWins;
+			generatedTables[Piece.Type.ROOK.ordinal()] = rookWins;
+			// A pawn that promotes reaches the queen or rook ending, so those tables come first.
+			generatedTables[Piece.Type.PAWN.ordinal()] = generate(Piece.Type.PAWN, queenWins, rookWins);
+			tables = generatedTables;
+		}
+	}
+
+	// Gets the result of the position for the player to move, or UNKNOWN if the tables do not cover it
+	// or have not been generated yet (see initialize).
+	// Positions with a lone king against a king and a bishop or knight are also covered (always drawn).
+	public static Result probe(Position position) {
+		long occupancy = position.getOccupancy();
+		if (Long.bitCount(occupancy) != 3)
+			return Result.UNKNOWN;
+		int strongKing = -1, weakKing = -1, piece = -1;
+		char strongPiece = Piece.EMPTY;
+		for (; occupancy != Bitboard.EMPTY; occupancy = Bitboard.removeFirst(occupancy)) {
+			int square = Bitboard.first(occupancy);
+			char squarePiece = position.getPiece(square);
+			if (Piece.type(squarePiece) != Piece.Type.KING) {
+				piece = square;
+				strongPiece = squarePiece;
+			}
+		}
+		Piece.Type pieceType = Piece.type(strongPiece);
+		if (pieceType == Piece.Type.BISHOP || pieceType == Piece.Type.KNIGHT)
+			return Result.DRAW;
+		boolean strongWhite = Piece.isWhite(strongPiece);
+		occupancy = position.getOccupancy();
+		for (; occupancy != Bitboard.EMPTY; occupancy = Bitboard.removeFirst(occupancy)) {
+			int square = Bitboard.first(occupancy);
+			char squarePiece = position.getPiece(square);
+			if (square == piece)
+				continue;
+			if (Piece.isWhite(squarePiece) == strongWhite)
+				strongKing = square;
+			else weakKing = square;
+		}
+		// Mirror the board vertically if black is the stronger side, so the stronger side plays up the board.
+		if (!strongWhite) {
+			strongKing ^= 56;
+			weakKing ^= 56;
+			piece ^= 56;
+		}
+		long[][] generatedTables = tables;
+		if (generatedTables == null)
+			return Result.UNKNOWN;
+		boolean strongToMove = (position.whiteToMove == strongWhite);
+		long[] wins = generatedTables[pieceType.ordinal()];
+		if (!won(wins, pieceType, strongToMove ? WHITE_TO_MOVE : BLACK_TO_MOVE, strongKing, weakKing, piece))
+			return Result.DRAW;
+		return strongToMove ? Result.WIN : Result.LOSS;
+	}
+
+	// Measures how far the stronger side has progressed in a won ending covered by the tables (higher is closer
+	// to winning), so the search can tell winning moves that make progress from ones that do not.
+	// With a queen or rook, the lone king should be driven to the edge with the stronger king close by.
+	// With a pawn, the pawn should advance, and then promote: any position with a queen or rook counts as more
+	// progress than any pawn position (see ROOK_PROGRESS), so a bot never puts off promoting towards the fifty-move
+	// rule. Each step of progress counts more than the differences between moves a bot chooses between at random
+	// (see Bot), so a bot does not wander between equally winning moves.
+	public static int progress(Position position) {
+		int strongKing = -1, weakKing = -1, pawn = -1;
+		boolean strongWhite = true;
+		int pieceProgress = ROOK_PROGRESS;
+		for (long occupancy = position.getOccupancy(); occupancy != Bitboard.EMPTY; occupancy = Bitboard.removeFirst(occupancy)) {
+			int square = Bitboard.first(occupancy);
+			char piece = position.getPiece(square);
+			if (Piece.type(piece) == Piece.Type.PAWN)
+				pawn = square;
+			if (Piece.type(piece) == Piece.Type.QUEEN)
+				pieceProgress = QUEEN_PROGRESS;
+			if (Piece.type(piece) != Piece.Type.KING)
+				strongWhite = Piece.isWhite(piece);
+		}
+		for (long occupancy = position.getOccupancy(); occupancy != Bitboard.EMPTY; occupancy = Bitboard.removeFirst(occupancy)) {
+			int square = Bitboard.first(occupancy);
+			char piece = position.getPiece(square);
+			if (Piece.type(piece) == Piece.Type.KING) {
+				if (Piece.isWhite(piece) == strongWhite)
+					strongKing = square;
+				else weakKing = square;
+			}
+		}
+		if (pawn >= 0) {
+			int relativeRank = strongWhite ? Bitboard.rank(pawn) : 7 - Bitboard.rank(pawn);
+			return 4 * relativeRank;
+		}
+		int kingDistance = Math.max(Math.abs(Bitboard.rank(strongKing) - Bitboard.rank(weakKing)),
+			Math.abs(Bitboard.file(strongKing) - Bitboard.file(weakKing)));
+		int rank = Bitboard.rank(weakKing), file = Bitboard.file(weakKing);
+		int centerDistance = Math.max(3 - rank, rank - 4) + Math.max(3 - file, file - 4);
+		return pieceProgress + 4 * centerDistance + 2 * (7 - kingDistance);
+	}
+
+	// Generates the table for white's piece type. The pawn table needs the queen and rook tables for promotions.
+	private static long[] generate(Piece.Type pieceType, long[] queenWins, long[] rookWins) {
+		long[] wins = new long[POSITIONS / 64];
+		// The legal positions not yet known to be won (in their canonical orientation; see canonicalIndex).
+		long[] undecided = new long[POSITIONS / 64];
+		// The positions to examine in the next pass of their side to move. A position can only become won once one
+		// of its moves reaches a newly won position, so after the first pass (which examines every undecided position),
+		// a pass only examines the positions with a move to a position the other side's previous pass marked.
+		long[] candidates = new long[POSITIONS / 64];
+		// The positions marked won by the latest pass.
+		long[] marked = new long[POSITIONS / 64];
+		IntStream.range(0, 64).parallel().forEach(whiteKing -> {
+			for (int blackKing = 0; blackKing < 64; blackKing++) {
+				if (index(WHITE_TO_MOVE, whiteKing, blackKing, 0) != canonicalIndex(pieceType, WHITE_TO_MOVE, whiteKing, blackKing, 0))
+					continue;
+				for (int sideToMove = WHITE_TO_MOVE; sideToMove <= BLACK_TO_MOVE; sideToMove++)
+					for (int piece = 0; piece < 64; piece++)
+						if (valid(sideToMove, whiteKing, blackKing, piece, pieceType))
+							set(undecided, index(sideToMove, whiteKing, blackKing, piece));
+			}
+		});
+		System.arraycopy(undecided, 0, candidates, 0, undecided.length);
+		boolean changed = true;
+		while (changed) {
+			// Each side's pass reads only the other side's half of the table, and each king square writes its own
+			// 4096 bits (64 whole longs), so the king squares can be marked in parallel without locking.
+			// The candidates of the other side are added afterwards, since they may belong to any king square.
+			boolean blackChanged = IntStream.range(0, 64).parallel()
+				.map(whiteKing -> markPositions(wins, undecided, candidates, marked, BLACK_TO_MOVE, whiteKing, pieceType, queenWins, rookWins))
+				.sum() > 0;
+			addPredecessors(candidates, marked, BLACK_TO_MOVE, pieceType);
+			boolean whiteChanged = IntStream.range(0, 64).parallel()
+				.map(whiteKing -> markPositions(wins, undecided, candidates, marked, WHITE_TO_MOVE, whiteKing, pieceType, queenWins, rookWins))
+				.sum() > 0;
+			addPredecessors(candidates, marked, WHITE_TO_MOVE, pieceType);
+			changed = blackChanged || whiteChanged;
+		}
+		return wins;
+	}
+
+	// Marks the newly won positions among the candidates with the side to move and white king square,
+	// returning how many were marked.
+	private static int markPositions(long[] wins, long[] undecided, long[] candidates, long[] marked, int sideToMove, int whiteKing,
+			Piece.Type pieceType, long[] queenWins, long[] rookWins) {
+		int markedCount = 0;
+		for (int blackKing = 0; blackKing < 64; blackKing++) {
+			// The positions with the same kings and side to move share a long, with one bit per piece square.
+			int word = index(sideToMove, whiteKing, blackKing, 0) >>> 6;
+			long pieces = undecided[word] & candidates[word];
+			candidates[word] = Bitboard.EMPTY;
+			for (; pieces != Bitboard.EMPTY; pieces = Bitboard.removeFirst(pieces)) {
+				int piece = Bitboard.first(pieces);
+				boolean won = (sideToMove == WHITE_TO_MOVE)
+					? whiteWins(wins, whiteKing, blackKing, piece, pieceType, queenWins, rookWins)
+					: blackLoses(wins, whiteKing, blackKing, piece, pieceType);
+				if (won) {
+					wins[word] |= Bitboard.bit(piece);
+					undecided[word] &= ~Bitboard.bit(piece);
+					marked[word] |= Bitboard.bit(piece);
+					markedCount++;
+				}
+			}
+		}
+		return markedCount;
+	}
+
+	// Makes candidates of the positions with a move to a position the latest pass marked (with the side to move
+	// of that pass), for the other side's next pass, and clears the marks. The candidates may include illegal
+	// positions, which are never examined since they are not undecided.
+	private static void addPredecessors(long[] candidates, long[] marked, int sideToMove, Piece.Type pieceType) {
+		int firstWord = index(sideToMove, 0, 0, 0) >>> 6;
+		for (int word = firstWord; word < firstWord + 64 * 64; word++) {
+			int whiteKing = (word >>> 6) & 63, blackKing = word & 63;
+			for (long pieces = marked[word]; pieces != Bitboard.EMPTY; pieces = Bitboard.removeFirst(pieces)) {
+				int piece = Bitboard.first(pieces);
+				long occupancy = Bitboard.bit(whiteKing) | Bitboard.bit(blackKing) | Bitboard.bit(piece);
+				if (sideToMove == WHITE_TO_MOVE) {
+					// Black's king moved to reach the position (a capture would leave the table).
+					long kingSources = Bitboard.kingAttacks(blackKing) & ~occupancy;
+					for (; kingSources != Bitboard.EMPTY; kingSources = Bitboard.removeFirst(kingSources))
+						addCandidate(candidates, pieceType, BLACK_TO_MOVE, whiteKing, Bitboard.first(kingSources), piece);
+					continue;
+				}
+				// White's king or piece moved to reach the position. Sliding back retraces the same line, and a pawn
+				// moved one rank up, or two from its starting rank.
+				long kingSources = Bitboard.kingAttacks(whiteKing) & ~occupancy;
+				for (; kingSources != Bitboard.EMPTY; kingSources = Bitboard.removeFirst(kingSources))
+					addCandidate(candidates, pieceType, WHITE_TO_MOVE, Bitboard.first(kingSources), blackKing, piece);
+				long pieceSources;
+				if (pieceType != Piece.Type.PAWN)
+					pieceSources = attacks(pieceType, piece, occupancy) & ~occupancy;
+				else {
+					int push = piece - 8;
+					pieceSources = Bitboard.EMPTY;
+					if (Bitboard.rank(push) >= 1 && !Bitboard.contains(occupancy, push)) {
+						pieceSources |= Bitboard.bit(push);
+						if (Bitboard.rank(piece) == 3 && !Bitboard.contains(occupancy, push - 8))
+							pieceSources |= Bitboard.bit(push - 8);
+					}
+				}
+				for (; pieceSources != Bitboard.EMPTY; pieceSources = Bitboard.removeFirst(pieceSources))
+					addCandidate(candidates, pieceType, WHITE_TO_MOVE, whiteKing, blackKing, Bitboard.first(pieceSources));
+			}
+			marked[word] = Bitboard.EMPTY;
+		}
+	}
+	// Makes a candidate of a position in its canonical orientation. With both kings on the a1-h8 diagonal, a position
+	// and its reflection across the diagonal are both canonical (see canonicalIndex), so both are made candidates.
+	private static void addCandidate(long[] candidates, Piece.Type pieceType, int sideToMove, int whiteKing, int blackKing, int piece) {
+		int index = canonicalIndex(pieceType, sideToMove, whiteKing, blackKing, piece);
+		set(candidates, index);
+		// The squares of the index are the piece in the low six bits, then the black king, then the white king.
+		int canonicalWhiteKing = (index >>> 12) & 63, canonicalBlackKing = (index >>> 6) & 63;
+		if (pieceType != Piece.Type.PAWN && transpose(canonicalWhiteKing) == canonicalWhiteKing
+				&& transpose(canonicalBlackKing) == canonicalBlackKing)
+			set(candidates, (index & ~63) | transpose(index & 63));
+	}
+
+	// Determines whether white to move has a move to a won position.
+	private static boolean whiteWins(long[] wins, int whiteKing, int blackKing, int piece, Piece.Type pieceType, long[] queenWins, long[] rookWins) {
+		long occupancy = Bitboard.bit(whiteKing) | Bitboard.bit(blackKing) | Bitboard.bit(piece);
+		long kingTargets = Bitboard.kingAttacks(whiteKing) & ~occupancy & ~Bitboard.kingAttacks(blackKing);
+		for (; kingTargets != Bitboard.EMPTY; kingTargets = Bitboard.removeFirst(kingTargets))
+			if (won(wins, pieceType, BLACK_TO_MOVE, Bitboard.first(kingTargets), blackKing, piece))
+				return true;
+		if (pieceType != Piece.Type.PAWN) {
+			long pieceTargets = attacks(pieceType, piece, occupancy) & ~occupancy;
+			for (; pieceTargets != Bitboard.EMPTY; pieceTargets = Bitboard.removeFirst(pieceTargets))
+				if (won(wins, pieceType, BLACK_TO_MOVE, whiteKing, blackKing, Bitboard.first(pieceTargets)))
+					return true;
+			return false;
+		}
+		// The pawn has nothing to capture, so it can only push (one rank is eight square indices).
+		int push = piece + 8;
+		if (Bitboard.contains(occupancy, push))
+			return false;
+		if (Bitboard.rank(push) == 7)
+			return won(queenWins, Piece.Type.QUEEN, BLACK_TO_MOVE, whiteKing, blackKing, push)
+				|| won(rookWins, Piece.Type.ROOK, BLACK_TO_MOVE, whiteKing, blackKing, push);
+		if (won(wins, pieceType, BLACK_TO_MOVE, whiteKing, blackKing, push))
+			return true;
+		int doublePush = push + 8;
+		return Bitboard.rank(piece) == 1 && !Bitboard.contains(occupancy, doublePush)
+			&& won(wins, pieceType, BLACK_TO_MOVE, whiteKing, blackKing, doublePush);
+	}
+
+	// Determines whether black to move is checkmated, or every move reaches a won position.
+	private static boolean blackLoses(long[] wins, int whiteKing, int blackKing, int piece, Piece.Type pieceType) {
+		long occupancy = Bitboard.bit(whiteKing) | Bitboard.bit(blackKing) | Bitboard.bit(piece);
+		// The black king must not step along the line of a slider it stands on, so the attacks are taken without it.
+		long pieceAttacks = attacks(pieceType, piece, occupancy & ~Bitboard.bit(blackKing));
+		long targets = Bitboard.kingAttacks(blackKing) & ~Bitboard.kingAttacks(whiteKing);
+		boolean hasMove = false;
+		for (; targets != Bitboard.EMPTY; targets = Bitboard.removeFirst(targets)) {
+			int target = Bitboard.first(targets);
+			// Capturing the undefended piece leaves two bare kings.
+			if (target == piece)
+				return false;
+			if (Bitboard.contains(pieceAttacks, target))
+				continue;
+			hasMove = true;
+			if (!won(wins, pieceType, WHITE_TO_MOVE, whiteKing, target, piece))
+				return false;
+		}
+		// Without a move, black is checkmated if in check, and stalemated otherwise.
+		return hasMove || Bitboard.contains(pieceAttacks, blackKing);
+	}
+
+	// Determines whether a position is legal: the pieces are on different squares, the kings are apart,
+	// a pawn is not on the first or last rank, and the player not to move is not in check.
+	private static boolean valid(int sideToMove, int whiteKing, int blackKing, int piece, Piece.Type pieceType) {
+		if (whiteKing == blackKing || whiteKing == piece || blackKing == piece)
+			return false;
+		if (Bitboard.contains(Bitboard.kingAttacks(whiteKing), blackKing))
+			return false;
+		if (pieceType == Piece.Type.PAWN && (Bitboard.rank(piece) == 0 || Bitboard.rank(piece) == 7))
+			return false;
+		long occupancy = Bitboard.bit(whiteKing) | Bitboard.bit(blackKing) | Bitboard.bit(piece);
+		return sideToMove == BLACK_TO_MOVE || !Bitboard.contains(attacks(pieceType, piece, occupancy), blackKing);
+	}
+
+	// Gets the squares attacked by white's piece.
+	private static long attacks(Piece.Type pieceType, int square, long occupancy) {
+		switch (pieceType) {
+		case QUEEN: return Bitboard.queenAttacks(square, occupancy);
+		case ROOK: return Bitboard.rookAttacks(square, occupancy);
+		default: return Bitboard.pawnAttacks(square, true);
+		}
+	}
+
+	// Determines whether a position is won for white, looking it up in its canonical orientation.
+	private static boolean won(long[] wins, Piece.Type pieceType, int sideToMove, int whiteKing, int blackKing, int piece) {
+		return get(wins, canonicalIndex(pieceType, sideToMove, whiteKing, blackKing, piece));
+	}
+	
+	// Gets the table index of a position after reflecting the board so the white king is on the a-d files.
+	// Without a pawn (whose direction matters), the board is also reflected so the white king is on the first
+	// four ranks and on or below the a1-h8 diagonal, leaving 10 white king squares instead of 64.
+	// Reflecting the board does not change the result, so each table only generates the canonical positions.
+	private static int canonicalIndex(Piece.Type pieceType, int sideToMove, int whiteKing, int blackKing, int piece) {
+		// Reflecting the files flips the low three bits of a square, and reflecting the ranks the high three.
+		int reflection = (Bitboard.file(whiteKing) > 3) ? 7 : 0;
+		if (pieceType != Piece.Type.PAWN && Bitboard.rank(whiteKing) > 3)
+			reflection ^= 56;
+		whiteKing ^= reflection;
+		blackKing ^= reflection;
+		piece ^= reflection;
+		if (pieceType != Piece.Type.PAWN && (Bitboard.rank(whiteKing) > Bitboard.file(whiteKing)
+				|| (Bitboard.rank(whiteKing) == Bitboard.file(whiteKing) && Bitboard.rank(blackKing) > Bitboard.file(blackKing)))) {
+			whiteKing = transpose(whiteKing);
+			blackKing = transpose(blackKing);
+			piece = transpose(piece);
+		}
+		return index(sideToMove, whiteKing, blackKing, piece);
+	}
+	// Reflects a square across the a1-h8 diagonal.
+	private static int transpose(int square) {
+		return Bitboard.square(Bitboard.file(square), Bitboard.rank(square));
+	}
+	
+	// Gets the table index of a position.
+	private static int index(int sideToMove, int whiteKing, int blackKing, int piece) {
+		return ((sideToMove * 64 + whiteKing) * 64 + blackKing) * 64 + piece;
+	}
+	// Sets the bit of a position.
+	private static void set(long[] bits, int index) {
+		bits[index >>> 6] |= 1L << index;
+	}
+	// Determines whether the bit of a position is set.
+	private static boolean get(long[] wins, int index) {
+		return (wins[index >>> 6] & (1L << index)) != 0;
+	}
+}
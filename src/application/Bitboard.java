@@ -0,0 +1,172 @@
+package application;
+
+// Facilitates processing bitboards.
+// A bitboard is a 64-bit long with one bit per square of the chess board, so a whole set of squares
+// (e.g. all white pawns, or all squares a knight attacks) can be processed with a few bitwise operations.
+// Bit n represents the square at rank n / 8 and file n % 8; bit 0 is a1 and bit 63 is h8.
+// Nate Hunter - 10/16/2026
+public class Bitboard {
+	// An empty set of squares.
+	public static final long EMPTY = 0L;
+
+	// The squares that stay on the board when shifted by each file delta (from -7 to 7, offset by 7).
+	// For example, shifting one file east must first drop the H file so it does not wrap around to the A file.
+	private static final long[] SHIFTABLE_SQUARES = new long[15];
+	static {
+		for (int fileDelta = -7; fileDelta <= 7; fileDelta++)
+			for (int square = 0; square < 64; square++) {
+				int targetFile = file(square) + fileDelta;
+				if (0 <= targetFile && targetFile < 8)
+					SHIFTABLE_SQUARES[fileDelta + 7] |= bit(square);
+			}
+	}
+
+	// Gets the square index (0 to 63) of an absolute rank and file.
+	public static int square(int rank, int file) {
+		return rank * 8 + file;
+	}
+	// Gets the rank of a square index.
+	public static int rank(int square) {
+		return square >>> 3;
+	}
+	// Gets the file of a square index.
+	public static int file(int square) {
+		return square & 7;
+	}
+
+	// Gets the bitboard containing only the specified square.
+	public static long bit(int square) {
+		return 1L << square;
+	}
+
+	// Determines whether the bitboard contains the specified square.
+	public static boolean contains(long bitboard, int square) {
+		return (bitboard & bit(square)) != 0;
+	}
+
+	// Gets the lowest square in a non-empty bitboard.
+	// Squares are typically visited in a loop that removes each square with removeFirst.
+	public static int first(long bitboard) {
+		return Long.numberOfTrailingZeros(bitboard);
+	}
+	// Removes the lowest square from the bitboard.
+	public static long removeFirst(long bitboard) {
+		return bitboard & (bitboard - 1);
+	}
+
+	// Shifts every square of the bitboard by a relative move direction.
+	// Squares that would leave the board (including wrapping around to the other side) are dropped.
+	public static long shift(long bitboard, int rankDelta, int fileDelta) {
+		// Drop the files that would wrap around to the other side of the board.
+		bitboard &= SHIFTABLE_SQUARES[fileDelta + 7];
+		// Squares shifted past the first or last rank fall off the ends of the long.
+		int shift = rankDelta * 8 + fileDelta;
+		return (shift > 0) ? bitboard << shift : bitboard >>> -shift;
+	}
+
+	// The directions of the rays in RAYS, as rank and file deltas. The first four directions increase
+	// the square index and the last four decrease it, which decides which end of a ray is blocked first.
+	private static final int NORTH = 0, NORTHEAST = 1, EAST = 2, NORTHWEST = 3;
+	private static final int SOUTH = 4, SOUTHWEST = 5, WEST = 6, SOUTHEAST = 7;
+	private static final int[] RAY_RANK_DELTAS = {1, 1, 0, 1, -1, -1, 0, -1};
+	private static final int[] RAY_FILE_DELTAS = {0, 1, 1, -1, 0, -1, -1, 1};
+
+	// Attack tables, indexed by square, precomputed so that attacks are looked up rather than
+	// computed from move directions every time.
+	// The squares a knight attacks from each square.
+	private static final long[] KNIGHT_ATTACKS = new long[64];
+	// The squares a king attacks from each square.
+	private static final long[] KING_ATTACKS = new long[64];
+	// The squares a white pawn and a black pawn attack from each square.
+	private static final long[] WHITE_PAWN_ATTACKS = new long[64];
+	private static final long[] BLACK_PAWN_ATTACKS = new long[64];
+	// The squares from each square to the edge of the board in each direction (excluding the square itself).
+	private static final long[][] RAYS = new long[8][64];
+	// The squares strictly between two squares on the same rank, file, or diagonal (empty otherwise).
+	private static final long[][] BETWEEN = new long[64][64];
+	// The whole rank, file, or diagonal through two squares on the same line (empty otherwise).
+	private static final long[][] LINES = new long[64][64];
+	static {
+		for (int square = 0; square < 64; square++) {
+			long squareBit = bit(square);
+			KNIGHT_ATTACKS[square] = shortRangeAttacks(squareBit, Coordinate.KNIGHT_MOVE_DIRECTIONS);
+			KING_ATTACKS[square] = shortRangeAttacks(squareBit, Coordinate.ROYALTY_MOVE_DIRECTIONS);
+			WHITE_PAWN_ATTACKS[square] = shortRangeAttacks(squareBit, Coordinate.WHITE_PAWN_CAPTURE_DIRECTIONS);
+			BLACK_PAWN_ATTACKS[square] = shortRangeAttacks(squareBit, Coordinate.BLACK_PAWN_CAPTURE_DIRECTIONS);
+			for (int direction = 0; direction < 8; direction++)
+				for (long ray = shift(squareBit, RAY_RANK_DELTAS[direction], RAY_FILE_DELTAS[direction]); ray != EMPTY;
+						ray = shift(ray, RAY_RANK_DELTAS[direction], RAY_FILE_DELTAS[direction]))
+					RAYS[direction][square] |= ray;
+		}
+		// Directions four apart are opposite (see RAY_RANK_DELTAS and RAY_FILE_DELTAS).
+		for (int square = 0; square < 64; square++)
+			for (int direction = 0; direction < 8; direction++) {
+				int opposite = (direction + 4) % 8;
+				for (long ray = RAYS[direction][square]; ray != EMPTY; ray = removeFirst(ray)) {
+					int other = first(ray);
+					BETWEEN[square][other] = RAYS[direction][square] & RAYS[opposite][other];
+					LINES[square][other] = RAYS[direction][square] | RAYS[opposite][square] | bit(square);
+				}
+			}
+	}
+
+	// Gets the squares a knight attacks from the specified square.
+	public static long knightAttacks(int square) {
+		return KNIGHT_ATTACKS[square];
+	}
+	// Gets the squares a king attacks from the specified square.
+	public static long kingAttacks(int square) {
+		return KING_ATTACKS[square];
+	}
+	// Gets the squares a pawn of the specified color attacks from the specified square.
+	public static long pawnAttacks(int square, boolean white) {
+		return white ? WHITE_PAWN_ATTACKS[square] : BLACK_PAWN_ATTACKS[square];
+	}
+	// Gets the squares a rook attacks from the specified square, given the occupied squares.
+	public static long rookAttacks(int square, long occupancy) {
+		return rayAttacks(NORTH, square, occupancy) | rayAttacks(EAST, square, occupancy)
+			| rayAttacks(SOUTH, square, occupancy) | rayAttacks(WEST, square, occupancy);
+	}
+	// Gets the squares a bishop attacks from the specified square, given the occupied squares.
+	public static long bishopAttacks(int square, long occupancy) {
+		return rayAttacks(NORTHEAST, square, occupancy) | rayAttacks(NORTHWEST, square, occupancy)
+			| rayAttacks(SOUTHEAST, square, occupancy) | rayAttacks(SOUTHWEST, square, occupancy);
+	}
+	// Gets the squares a queen attacks from the specified square, given the occupied squares.
+	public static long queenAttacks(int square, long occupancy) {
+		return rookAttacks(square, occupancy) | bishopAttacks(square, occupancy);
+	}
+
+	// Gets the squares strictly between two squares on the same rank, file, or diagonal (empty otherwise).
+	// For example, a check by a slider can be blocked on the squares between the slider and the king.
+	public static long between(int squareA, int squareB) {
+		return BETWEEN[squareA][squareB];
+	}
+	// Gets the whole rank, file, or diagonal through two squares (empty if they are not on the same line).
+	// For example, a pinned piece can only move along the line through its king and the pinning piece.
+	public static long line(int squareA, int squareB) {
+		return LINES[squareA][squareB];
+	}
+
+	// Gets the squares attacked along a ray, up to and including the first occupied square.
+	// The squares beyond the first blocker are exactly the blocker's own ray in the same direction,
+	// so they are removed with a single lookup.
+	private static long rayAttacks(int direction, int square, long occupancy) {
+		long ray = RAYS[direction][square];
+		long blockers = ray & occupancy;
+		if (blockers == EMPTY)
+			return ray;
+		// The nearest blocker has the lowest index on increasing rays and the highest on decreasing rays.
+		int blocker = (direction < SOUTH) ? first(blockers) : 63 - Long.numberOfLeadingZeros(blockers);
+		return ray ^ RAYS[direction][blocker];
+	}
+
+	// Gets the squares attacked from each square of the bitboard by pieces moving one step in each direction.
+	// Used to build the attack tables.
+	private static long shortRangeAttacks(long bitboard, Coordinate[] moveDirections) {
+		long attacks = EMPTY;
+		for (Coordinate direction : moveDirections)
+			attacks |= shift(bitboard, direction.rank, direction.file);
+		return attacks;
+	}
+}
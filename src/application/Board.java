@@ -9,17 +9,24 @@ import javafx.scene.shape.Rectangle;
 // Nate Hunter - 03/12/2022
 public class Board {
 	// The 64 squares on the chess board.
-	private static Square[][] squares = new Square[8][8];
+	private final Square[][] squares = new Square[8][8];
+	// The arbiter the squares report clicks to.
+	private final Arbiter arbiter;
 	
-	// Sets up the chess board in the starting position.
-	public static StackPane initialize() {
+	// Creates a chess board reporting clicks to the specified arbiter.
+	public Board(Arbiter arbiter) {
+		this.arbiter = arbiter;
+	}
+	
+	// Sets up the chess board in the specified position.
+	public StackPane initialize(Position position) {
 		// Add squares and pieces to the grid.
 		GridPane grid = new GridPane();
 	    for (int rank = 0; rank < 8; rank++)
 	    	for (int file = 0; file < 8; file++) {
 	    		Coordinate location = new Coordinate(rank, file);
-	    		char piece = Position.current.getPiece(location);
-	    		Square square = new Square(location, piece);
+	    		char piece = position.getPiece(location);
+	    		Square square = new Square(location, piece, arbiter);
 	    		squares[rank][file] = square;
 	    		// Ranks are displayed from bottom to top when playing as white.
 	    		int row = 7 - rank;
@@ -36,19 +43,18 @@ public class Board {
 		return displayBoard;
 	}
 	
-	// Updates the chess board with the current position.
+	// Updates the chess board with the specified position.
 	// This should be called whenever the position changes.
-	public static void update() {
+	public void update(Position position) {
 	    for (int rank = 0; rank < 8; rank++)
 	    	for (int file = 0; file < 8; file++) {
-	    		Coordinate location = new Coordinate(rank, file);
-	    		char piece = Position.current.getPiece(location);
+	    		char piece = position.getPiece(Bitboard.square(rank, file));
 	    		squares[rank][file].drawPiece(piece);
 	    	}
 	}
 	
 	// Gets the square at the given coordinates.
-	public static Square getSquare(Coordinate location) {
+	public Square getSquare(Coordinate location) {
 		return squares[location.rank][location.file];
 	}
 }
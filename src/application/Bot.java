@@ -1,137 +1,656 @@
 package application;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 // A computer player.
 // Nate Hunter - 07/31/2022
 public class Bot {
-	// Chooses a move based on the current position.
-	public Move move() {
-		// TODO Add growth to specific branches.
-		PositionTree positionTree = PositionTree.grow(Position.current.copy(), 3);
-		Map<Move, Integer> evaluationsByMove = new HashMap<Move, Integer>();
-		int badEvaluation = positionTree.rootPosition.whiteToMove ? -1000 : 1000;
-		int bestEvaluation = badEvaluation;
-		
-		// Evaluate all legal moves.
-		for (Map.Entry<Move, PositionTree> futureBranch : positionTree.futureBranches.entrySet()) {
-			int branchEvaluation = evaluate(futureBranch.getValue());
-			bestEvaluation = best(bestEvaluation, branchEvaluation, positionTree.rootPosition.whiteToMove);
-			evaluationsByMove.put(futureBranch.getKey(), branchEvaluation);
-		}
-		Log.writeCalculations(evaluationsByMove.toString());
-		
-		// Select a random move within some threshold of the best move.
-		int EVALUATION_THRESHOLD = 1;
+	// The default number of moves (plies) to search ahead.
+	private static final int DEFAULT_SEARCH_DEPTH = 4;
+	// The default size of the transposition table in megabytes.
+	private static final int DEFAULT_HASH_MEGABYTES = 16;
+	// The transposition table shared by default, so results carry over from one move to the next.
+	private static final TranspositionTable SHARED_TABLE = new TranspositionTable(DEFAULT_HASH_MEGABYTES);
+	
+	// Evaluations are from the perspective of the player to move (negamax): positive is good for that player.
+	// The evaluation of being checkmated. Checkmates found sooner are scored further from zero (see search).
+	private static final int CHECKMATE = 1000;
+	// An evaluation beyond any real evaluation, for initializing search windows.
+	private static final int INFINITY = CHECKMATE + 1;
+	// The maximum number of plies from the root; evaluations within this many of CHECKMATE are checkmates.
+	private static final int MAX_PLY = 100;
+	// Moves evaluated within this threshold of the best move are chosen between randomly.
+	private static final int EVALUATION_THRESHOLD = 1;
+	// The number of positions between checks of the time limit (minus one, as a bit mask).
+	private static final int TIME_CHECK_INTERVAL = 1023;
+	// The most a position's evaluation is assumed to change apart from the material captured.
+	// Quiescence search skips captures that could not raise the evaluation to alpha even with this margin.
+	private static final int DELTA_MARGIN = 2;
+	// The evaluation of a position the endgame tables show is won (see Bitbase), before adding how far the
+	// winning side has progressed. It is above any material evaluation, but below the checkmate evaluations.
+	private static final int KNOWN_WIN = 500;
+	// The most pieces (including the kings) a position can have for its search to reach the endgame tables
+	// soon, so the tables are generated before the search starts. Probes never generate them (see Bitbase),
+	// so a search from a position with more pieces does not stall on the generation.
+	private static final int ENDGAME_TABLE_PIECES = 5;
+	
+	// Moves are searched in order from the most promising (see MovePicker), since the earlier a good move
+	// is searched, the more of the remaining moves alpha-beta can prune. Quiet moves are ordered by how
+	// often they caused cutoffs (the history heuristic). The history scores are halved whenever one reaches
+	// this limit, so recent cutoffs weigh more.
+	private static final int HISTORY_LIMIT = 1 << 20;
+	// The number of killer moves remembered per ply.
+	private static final int KILLERS_PER_PLY = 2;
+	
+	// The default number of search threads (one per core, up to the point where gains level off).
+	public static final int DEFAULT_THREADS = Math.min(8, Runtime.getRuntime().availableProcessors());
+	// The threads running helper searches, shared by all bots. Daemon threads do not keep the program running.
+	private static final ExecutorService HELPER_THREADS = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "Bot helper");
+		thread.setDaemon(true);
+		return thread;
+	});
+	
+	// Receives a report each time the main search completes an iteration (e.g. to show the search's progress).
+	public static interface IterationListener {
+		// Reports the depth completed, the evaluation of the best move (for the player to move; see
+		// isCheckmateEvaluation), the positions visited so far (across all threads), the time taken so far,
+		// and the expected line of play starting with the best move (the principal variation).
+		void iterationCompleted(int depth, int evaluation, long nodes, long milliseconds, List<Move> principalVariation);
+	}
+	
+	// The number of moves (plies) to search ahead. With a time control or node limit, this is the maximum depth.
+	private final int searchDepth;
+	// The time limits of each search, or null to always search to the full depth.
+	private TimeControl timeControl = null;
+	// The most positions the main search may visit per move, or 0 for no limit.
+	private long nodeLimit = 0;
+	// The opening book consulted before searching, or null to always search.
+	private PolyglotBook openingBook = null;
+	// The listener for completed iterations, or null if none.
+	private IterationListener iterationListener = null;
+	// The searchers of the latest search, so iteration reports can count the positions of every thread.
+	private List<Searcher> searchers = new ArrayList<Searcher>();
+	// When the latest search started, in System.nanoTime units.
+	private long startTime;
+	// The number of threads searching in parallel (see move).
+	private final int threads;
+	// The transposition table used to reuse the results of positions already searched.
+	// It is shared by all the search threads of the bot.
+	private final TranspositionTable table;
+	// The source of randomness for choosing between moves of similar evaluation.
+	private final Random random = new Random();
+	// Whether to choose at random between moves of similar evaluation, rather than always play the best move.
+	private boolean randomMoveChoice = true;
+	// Whether the searches should stop (set once the main search finishes, or to cancel the search).
+	private volatile boolean stopped;
+	// Whether stop was called since the latest search finished, so a stop requested before a search starts
+	// (e.g. while it waits for a search thread; see BotService) still ends it right away.
+	private volatile boolean stopRequested = false;
+	// When the latest search must stop starting new iterations and stop completely (see TimeControl),
+	// in System.nanoTime units.
+	private long softDeadline;
+	private long hardDeadline;
+	// The number of positions visited by the latest search (across all threads).
+	private long nodes;
+	// The number of cutoffs in the latest search, and how many of them came from the first move searched
+	// (across all threads). A high first-move share shows that the move ordering works.
+	private long cutoffs;
+	private long firstMoveCutoffs;
+	// A description of the evaluations and statistics of the latest search, for display in the log.
+	private String calculations = "";
+	
+	// Creates a bot that searches to the default depth with the default number of threads
+	// using the shared transposition table.
+	public Bot() {
+		this(DEFAULT_SEARCH_DEPTH, DEFAULT_THREADS, SHARED_TABLE);
+	}
+	// Creates a bot that searches to the specified depth with the specified number of threads
+	// using the specified transposition table (which may be shared with other bots).
+	public Bot(int searchDepth, int threads, TranspositionTable table) {
+		this.searchDepth = searchDepth;
+		this.threads = Math.max(1, threads);
+		this.table = table;
+	}
+	
+	// Limits how long each search may take. The search deepens until the time runs out (up to the
+	// search depth) and plays the best move of the last completed iteration.
+	// A null time control searches to the full depth regardless of time.
+	public void setTimeControl(TimeControl timeControl) {
+		this.timeControl = timeControl;
+	}
+	
+	// Limits how many positions the main search may visit per move (0 for no limit). Like a time control,
+	// the search deepens until the limit is reached (up to the search depth) and plays the best move of the
+	// last completed iteration.
+	// Unlike time, a node limit gives the same search on any machine and under any load (e.g. for matches).
+	public void setNodeLimit(long nodeLimit) {
+		this.nodeLimit = nodeLimit;
+	}
+	
+	// Sets the opening book. While the position is in the book, a book move is played (chosen at random
+	// by the book's weights) instead of searching. A null book always searches.
+	public void setOpeningBook(PolyglotBook openingBook) {
+		this.openingBook = openingBook;
+	}
+	
+	// Sets the listener for completed iterations of the search, or null for none.
+	// The listener is called on the thread running move, between iterations.
+	public void setIterationListener(IterationListener iterationListener) {
+		this.iterationListener = iterationListener;
+	}
+	
+	// Seeds the choice between moves of similar evaluation. With a single thread and a fresh
+	// transposition table, a seeded bot chooses the same move every time for the same position.
+	public void setRandomSeed(long seed) {
+		random.setSeed(seed);
+	}
+	
+	// Sets whether the bot chooses at random between the moves evaluated within EVALUATION_THRESHOLD of the best
+	// (the default, for variety), or always plays the best move: the first move of the principal variation
+	// of the last completed iteration (e.g. for engine protocols and test suites).
+	public void setRandomMoveChoice(boolean randomMoveChoice) {
+		this.randomMoveChoice = randomMoveChoice;
+	}
+	
+	// Chooses a move for the specified position (which is copied, so it is left unchanged).
+	// Returns null if the position has no legal moves, or if the search is stopped before it completes
+	// its first iteration.
+	//
+	// The search is a depth-first alpha-beta search with iterative deepening: the position is searched
+	// to depth 1, then 2, and so on, with each iteration searching the best moves of the previous one first.
+	// Walking the game tree depth-first on a single copy of the position with makeMove/unmakeMove means
+	// the tree is never stored, and alpha-beta pruning skips moves that cannot affect the result.
+	//
+	// With multiple threads, helper threads search the same position on their own copies (Lazy SMP).
+	// They share the transposition table with the main search, which then finds many positions already
+	// searched. Helpers start at different depths and root move orders so they spread out over the tree.
+	// The main search alone decides the move, so a single thread gives the same result as before.
+	public Move move(Position currentPosition) {
+		if (openingBook != null) {
+			Move bookMove = openingBook.pickMove(currentPosition, random);
+			if (bookMove != null) {
+				calculations = "Book move " + bookMove.getNotation();
+				stopRequested = false;
+				return bookMove;
+			}
+		}
+		Position position = currentPosition.copy();
+		if (Long.bitCount(position.getOccupancy()) <= ENDGAME_TABLE_PIECES)
+			Bitbase.initialize();
+		table.newSearch();
+		stopped = stopRequested;
+		startTime = System.nanoTime();
+		softDeadline = Long.MAX_VALUE;
+		hardDeadline = Long.MAX_VALUE;
+		// With a time control or node limit, the search depth is the most the search deepens to.
+		int maximumDepth = Math.min(searchDepth, MAX_PLY);
+		if (timeControl != null) {
+			softDeadline = startTime + timeControl.softLimitMilliseconds * 1000000;
+			hardDeadline = startTime + timeControl.hardLimitMilliseconds * 1000000;
+		}
+		
+		// Find the legal moves.
+		position.computeAllMoves();
+		List<Move> rootMoves = new ArrayList<Move>(position.moves);
+		if (rootMoves.isEmpty()) {
+			calculations = "No legal moves";
+			stopRequested = false;
+			return null;
+		}
+		// In a won ending of the tables, only the pawn moves that keep the win are searched, if there are any.
+		// A pawn move restarts the fifty-move count, and promoting now or a move later can end the search
+		// in equally good positions, so without this a bot may put off pushing its pawn until the game is drawn.
+		if (Bitbase.probe(position) == Bitbase.Result.WIN) {
+			List<Move> winningPawnMoves = new ArrayList<Move>();
+			for (Move move : rootMoves) {
+				if (Piece.type(position.getPiece(move.source)) != Piece.Type.PAWN)
+					continue;
+				position.makeMove(move);
+				if (Bitbase.probe(position) == Bitbase.Result.LOSS)
+					winningPawnMoves.add(move);
+				position.unmakeMove(move);
+			}
+			if (!winningPawnMoves.isEmpty())
+				rootMoves = winningPawnMoves;
+		}
+		
+		// Start the helper searches, which keep deepening until the main search finishes.
+		List<Searcher> helpers = new ArrayList<Searcher>();
+		List<Future<?>> helperResults = new ArrayList<Future<?>>();
+		for (int helperIndex = 1; helperIndex < threads; helperIndex++) {
+			Searcher helper = new Searcher(position.copy(), false);
+			List<Move> helperRootMoves = new ArrayList<Move>(rootMoves);
+			Collections.rotate(helperRootMoves, helperIndex);
+			int startDepth = 1 + helperIndex % 2;
+			helpers.add(helper);
+			helperResults.add(HELPER_THREADS.submit(() -> helper.deepen(helperRootMoves, startDepth, MAX_PLY)));
+		}
+		
+		// Run the main search, then stop the helpers.
+		Searcher mainSearcher;
+		Map<Move, Integer> evaluationsByMove;
+		try {
+			mainSearcher = new Searcher(position, true);
+			searchers = new ArrayList<Searcher>(helpers);
+			searchers.add(mainSearcher);
+			evaluationsByMove = mainSearcher.deepen(rootMoves, 1, maximumDepth);
+		} finally {
+			// The helpers are stopped and waited for however the main search ends, so none of them keeps
+			// searching (and writing to the shared table) into the bot's next search.
+			stopped = true;
+			stopRequested = false;
+			for (Future<?> helperResult : helperResults) {
+				try {
+					helperResult.get();
+				} catch (InterruptedException | ExecutionException exception) {
+					throw new IllegalStateException("Helper search failed", exception);
+				}
+			}
+		}
+		if (evaluationsByMove == null)
+			return null;
+		nodes = mainSearcher.nodes;
+		cutoffs = mainSearcher.cutoffs;
+		firstMoveCutoffs = mainSearcher.firstMoveCutoffs;
+		for (int helperIndex = 0; helperIndex < helpers.size(); helperIndex++) {
+			nodes += helpers.get(helperIndex).nodes;
+			cutoffs += helpers.get(helperIndex).cutoffs;
+			firstMoveCutoffs += helpers.get(helperIndex).firstMoveCutoffs;
+		}
+		describeCalculations(evaluationsByMove, position.whiteToMove, mainSearcher.completedDepth);
+		
+		// Select the best move, or a random move within some threshold of the best move.
+		// The root moves are in the order of the last completed iteration, so the first move with the best
+		// evaluation is the one its principal variation starts with (see reportIteration).
+		int bestEvaluation = Collections.max(evaluationsByMove.values());
+		if (!randomMoveChoice)
+			for (Move move : rootMoves)
+				if (evaluationsByMove.get(move) == bestEvaluation)
+					return move;
 		List<Move> moveOptions = new ArrayList<Move>();
+		for (Move move : rootMoves) {
+			if (bestEvaluation - evaluationsByMove.get(move) <= EVALUATION_THRESHOLD)
+				moveOptions.add(move);
+		}
+		return moveOptions.get(random.nextInt(moveOptions.size()));
+	}
+	
+	// Stops the search as soon as possible. The move returned is then the best move found by the
+	// last completed iteration (or null if none completed). This may be called from any thread,
+	// even before the search starts.
+	public void stop() {
+		stopRequested = true;
+		stopped = true;
+	}
+	
+	// Gets a description of the evaluations and statistics of the latest search.
+	public String getCalculations() {
+		return calculations;
+	}
+	
+	// Describes the evaluations of the root moves (from white's perspective) and the search statistics.
+	private void describeCalculations(Map<Move, Integer> evaluationsByMove, boolean whiteToMove, int depth) {
+		Map<Move, Integer> whiteEvaluationsByMove = new HashMap<Move, Integer>();
 		for (Map.Entry<Move, Integer> evaluationByMove : evaluationsByMove.entrySet()) {
-			if (Math.abs(bestEvaluation - evaluationByMove.getValue()) <= EVALUATION_THRESHOLD)
-				moveOptions.add(evaluationByMove.getKey());
-		}
-		int moveIndex = (int)(Math.random() * moveOptions.size());
-		return moveOptions.get(moveIndex);
-	}
-	
-	// Evaluates the root position of the tree.
-	private int evaluate(PositionTree positionTree) {
-		// Evaluate positions that end the game.
-		if (positionTree.status == PositionTree.Status.STALEMATE)
-			return 0;
-		int badEvaluation = positionTree.rootPosition.whiteToMove ? -1000 : 1000;
-		if (positionTree.status == PositionTree.Status.CHECKMATE)
-			return badEvaluation;
-		
-		// Evaluate positions at the end of the tree.
-		boolean branching = (positionTree.depth > 0);
-		if (!branching)
-			return positionTree.rootPosition.materialValue + bestMaterialValueToGrab(positionTree.rootPosition);
-
-		// Find the best evaluation of all immediate future positions.
-		int bestEvaluation = badEvaluation;
-		for (Map.Entry<Move, PositionTree> futureBranch : positionTree.futureBranches.entrySet()) {
-			int branchEvaluation = evaluate(futureBranch.getValue());
-			bestEvaluation = best(bestEvaluation, branchEvaluation, positionTree.rootPosition.whiteToMove);
-		}
-		return bestEvaluation;
-	}
-	
-	// Selects the better evaluation from two evaluations.
-	// White prefers the most positive evaluation; black prefers the most negative.
-	private int best(int evaluationA, int evaluationB, boolean optimizeForWhite) {
-		if (optimizeForWhite)
-			return Math.max(evaluationA, evaluationB);
-		return Math.min(evaluationA, evaluationB);	
-	}
-	
-	// Determines the material value that can be extracted from the juiciest square.
-	// This involves identifying what pieces attack each square and evaluating trades.
-	private int bestMaterialValueToGrab(Position position) {
-		int bestMaterialValue = 0;
-		for (int rank = 0; rank < 8; rank++)
-			for (int file = 0; file < 8; file++) {
-				// Skip squares without capturable pieces.
-				Coordinate coordinate = new Coordinate(rank, file);
-				char pieceToGrab = position.getPiece(coordinate);
-				boolean capturablePiece = Piece.isOpposing(pieceToGrab, position.whiteToMove);
-				if (!capturablePiece) continue;
-				// Skip unattacked squares.
-				final boolean ACTIVE_PLAYER = true;
-				List<Character> attackers = position.getAttackers(coordinate, ACTIVE_PLAYER);
-				if (attackers.isEmpty()) continue;
-				
-				// The material value is the value of removing the piece when undefended.
-				int pieceCaptureValue = -Piece.materialValue(pieceToGrab);
-				List<Character> defenders = position.getAttackers(coordinate, !ACTIVE_PLAYER);
-				if (defenders.isEmpty()) {
-					bestMaterialValue = best(bestMaterialValue, pieceCaptureValue, position.whiteToMove);
-					continue;
+			int evaluation = evaluationByMove.getValue();
+			whiteEvaluationsByMove.put(evaluationByMove.getKey(), whiteToMove ? evaluation : -evaluation);
+		}
+		long milliseconds = (System.nanoTime() - startTime) / 1000000;
+		double firstMoveCutoffPercentage = (cutoffs == 0) ? 0 : 100.0 * firstMoveCutoffs / cutoffs;
+		calculations = whiteEvaluationsByMove + "\nDepth " + depth + ", " + threads + " threads, "
+			+ nodes + " nodes, " + milliseconds + " ms\n"
+			+ String.format("Cutoffs: %d, %.1f%% on the first move\n", cutoffs, firstMoveCutoffPercentage) + table;
+	}
+	
+	// A single thread's search, which walks the game tree on its own copy of the position.
+	private class Searcher {
+		// The position searched, which moves are made and unmade on.
+		private final Position position;
+		// The number of positions visited.
+		private long nodes;
+		// The depth of the last completed iteration.
+		private int completedDepth;
+		// Whether this is the main search, which keeps track of the time limits for all the searches.
+		private final boolean main;
+		// Whether the endgame tables cover the root position. Won positions are then still searched
+		// (rather than evaluated straight from the tables), so the search can find the checkmate.
+		private final boolean rootInEndgameTables;
+		// The number of cutoffs, and how many of them came from the first move searched.
+		private long cutoffs;
+		private long firstMoveCutoffs;
+		// The moves of the position at each ply for quiescence search, and the move pickers at each ply
+		// for the main search, reused from one position to the next. Each is created the first time its ply
+		// is reached (null until then), since most searches never come near MAX_PLY, and creating them all
+		// would allocate over half a megabyte per search and thread.
+		private final MoveList[] moveLists = new MoveList[MAX_PLY + 1];
+		private final MovePicker[] movePickers = new MovePicker[MAX_PLY + 1];
+		// The quiet moves that most recently caused a cutoff at each ply (killer moves).
+		// A move that refutes one position often refutes its siblings too.
+		private final int[][] killerMoves = new int[MAX_PLY + 1][KILLERS_PER_PLY];
+		// How much each quiet move (by color, source square, and target square) has caused cutoffs.
+		private final int[][][] history = new int[2][64][64];
+		
+		// Creates a searcher for the position.
+		private Searcher(Position position, boolean main) {
+			this.position = position;
+			this.main = main;
+			rootInEndgameTables = (Bitbase.probe(position) != Bitbase.Result.UNKNOWN);
+		}
+		
+		// Searches the root moves one ply deeper at a time, from the start depth to the end depth.
+		// Returns the evaluations of the root moves in the last completed iteration.
+		// The root moves are reordered so that the best moves of each iteration are searched first.
+		private Map<Move, Integer> deepen(List<Move> rootMoves, int startDepth, int endDepth) {
+			Map<Move, Integer> evaluationsByMove = null;
+			for (int depth = startDepth; depth <= endDepth && !stopped; depth++) {
+				Map<Move, Integer> iterationEvaluations = new HashMap<Move, Integer>();
+				int bestEvaluation = -INFINITY;
+				for (Move move : rootMoves) {
+					// Moves only need exact evaluations if they are within the threshold of the best move.
+					// Searching with a lower bound just below the threshold lets worse moves be pruned.
+					int alpha = Math.max(-INFINITY, bestEvaluation - EVALUATION_THRESHOLD - 1);
+					position.makeMove(move);
+					// Repeating a position is evaluated as a draw rather than searched again.
+					int moveEvaluation = position.isRepetition() ? 0 : -search(depth - 1, 1, -INFINITY, -alpha);
+					position.unmakeMove(move);
+					iterationEvaluations.put(move, moveEvaluation);
+					bestEvaluation = Math.max(bestEvaluation, moveEvaluation);
 				}
-				
-				// Get the values of all attacking pieces.
-				List<Integer> attackerValues = new ArrayList<Integer>();
-				for (Character attacker : attackers)
-					attackerValues.add(Piece.materialValue(attacker));
-				List<Integer> defenderValues = new ArrayList<Integer>();
-				for (char defender : defenders)
-					defenderValues.add(Piece.materialValue(defender));
-				// Sort the pieces from least valuable to most valuable.
-				// Optimal players will capture with their least valuable pieces first.
-				Collections.sort(attackerValues);
-				Collections.sort(defenderValues);
-				// The black pieces must be reversed since values are negative.
-				if (position.whiteToMove)
-					Collections.reverse(defenderValues);
-				else Collections.reverse(attackerValues);
-				
-				// Compute the evaluations for the full series of piece trades.
-				List<Integer> tradeEvaluations = new ArrayList<Integer>();
-				tradeEvaluations.add(0);
-				// Begin with the evaluation after grabbing the piece already on the square.
-				boolean attackerToMove = true;
-				int latestEvaluation = pieceCaptureValue;
-				tradeEvaluations.add(latestEvaluation);
-				while (!(attackerValues.isEmpty() || defenderValues.isEmpty())) {
-					// Add the evaluation after capturing the latest attacking piece to occupy the square.
-					attackerToMove = !attackerToMove;
-					if (attackerToMove)
-						latestEvaluation -= defenderValues.remove(0);
-					else latestEvaluation -= attackerValues.remove(0);
-					tradeEvaluations.add(latestEvaluation);
+				// An iteration cut short by stopping is incomplete, so its evaluations are discarded.
+				if (stopped)
+					break;
+				evaluationsByMove = iterationEvaluations;
+				completedDepth = depth;
+				if (main && iterationListener != null)
+					reportIteration(rootMoves, iterationEvaluations, depth);
+				// Another iteration would likely not finish before the hard deadline (or the node limit).
+				if (main && (System.nanoTime() > softDeadline || (nodeLimit > 0 && nodes >= nodeLimit / 2)))
+					break;
+				// Search the best moves first in the next iteration, since they are most likely to stay best.
+				final Map<Move, Integer> evaluations = evaluationsByMove;
+				rootMoves.sort((moveA, moveB) -> evaluations.get(moveB) - evaluations.get(moveA));
+			}
+			return evaluationsByMove;
+		}
+		
+		// Reports a completed iteration to the iteration listener.
+		private void reportIteration(List<Move> rootMoves, Map<Move, Integer> evaluations, int depth) {
+			Move bestMove = rootMoves.get(0);
+			for (Move move : rootMoves)
+				if (evaluations.get(move) > evaluations.get(bestMove))
+					bestMove = move;
+			// The other threads' counts are read while they run, so the total is approximate.
+			long totalNodes = 0;
+			for (Searcher searcher : searchers)
+				totalNodes += searcher.nodes;
+			long milliseconds = (System.nanoTime() - startTime) / 1000000;
+			iterationListener.iterationCompleted(depth, evaluations.get(bestMove), totalNodes, milliseconds,
+				principalVariation(bestMove, depth));
+		}
+		
+		// Finds the expected line of play starting with the best root move, by following the best moves
+		// stored in the transposition table. The line ends early where the table has no (legal) move
+		// or a position repeats.
+		private List<Move> principalVariation(Move bestMove, int depth) {
+			List<Move> principalVariation = new ArrayList<Move>();
+			principalVariation.add(bestMove);
+			Position linePosition = position.copy();
+			linePosition.makeMove(bestMove);
+			while (principalVariation.size() < depth && !linePosition.isRepetition()) {
+				long entry = table.probe(linePosition.getKey());
+				int move = (entry == TranspositionTable.NO_ENTRY) ? TranspositionTable.NO_MOVE : TranspositionTable.move(entry);
+				if (move == TranspositionTable.NO_MOVE || !linePosition.isLegal(move))
+					break;
+				principalVariation.add(linePosition.toMove(move));
+				linePosition.makeMove(move);
+			}
+			return principalVariation;
+		}
+		
+		// Evaluates the position by searching the specified number of moves (depth) ahead.
+		// The evaluation is only exact if it lies strictly between alpha and beta: alpha is the evaluation
+		// the player to move is already guaranteed elsewhere, and beta is the evaluation the opponent is
+		// already guaranteed elsewhere (negated), so evaluations outside that window cannot affect the result.
+		// The ply is the number of moves made since the root. Moves are made and unmade in place,
+		// so the position is unchanged when this method returns.
+		private int search(int depth, int ply, int alpha, int beta) {
+			// Positions at the end of the search are evaluated once the trades in progress are resolved.
+			boolean branching = (depth > 0);
+			if (!branching)
+				return quiesce(ply, alpha, beta);
+			nodes++;
+			checkTime();
+			// A stopped search's evaluation is discarded, so it returns right away.
+			if (stopped)
+				return 0;
+			// Positions the endgame tables cover need no search, unless the search started in them.
+			// Drawn positions are never searched, since they stay drawn with best play.
+			Bitbase.Result endgameResult = Bitbase.probe(position);
+			if (endgameResult == Bitbase.Result.DRAW || (endgameResult != Bitbase.Result.UNKNOWN && !rootInEndgameTables))
+				return evaluate(endgameResult);
+		
+			// Reuse the evaluation of a transposition already searched at least as deep
+			// if it is exact or its bound is enough to fall outside the window.
+			long entry = table.probe(position.getKey());
+			int hashMove = TranspositionTable.NO_MOVE;
+			if (entry != TranspositionTable.NO_ENTRY) {
+				hashMove = TranspositionTable.move(entry);
+				if (TranspositionTable.depth(entry) >= depth) {
+					int entryEvaluation = evaluationFromTable(TranspositionTable.score(entry), ply);
+					switch (TranspositionTable.bound(entry)) {
+					case EXACT:
+						return entryEvaluation;
+					case LOWER:
+						if (entryEvaluation >= beta)
+							return entryEvaluation;
+						break;
+					case UPPER:
+						if (entryEvaluation <= alpha)
+							return entryEvaluation;
+						break;
+					}
 				}
-				
-				// The material value is the evaluation wherever optimal trading stops.
-				// This is determined by working backwards through the series of trades.
-				Collections.reverse(tradeEvaluations);
-				int optimalEvaluation = tradeEvaluations.remove(0);
-				for (int currentEvaluation : tradeEvaluations) {
-					// The current evaluation applies before capturing; here, the optimal evaluation
-					// applies after capturing. Optimal players only capture if it improves the evaluation.
-					boolean whiteToDecide = (position.whiteToMove == attackerToMove);
-					optimalEvaluation = best(optimalEvaluation, currentEvaluation, whiteToDecide);
-					attackerToMove = !attackerToMove;
+			}
+		
+			// Each ply has its own move picker, since deeper calls pick moves of their own.
+			MovePicker movePicker = movePickers[ply];
+			if (movePicker == null)
+				movePicker = movePickers[ply] = new MovePicker(position);
+			movePicker.reset(hashMove, killerMoves[ply], history[position.whiteToMove ? 0 : 1]);
+		
+			// Find the best evaluation of all immediate future positions (principal variation search).
+			int originalAlpha = alpha;
+			int bestEvaluation = -INFINITY;
+			int bestMove = TranspositionTable.NO_MOVE;
+			int moveCount = 0;
+			for (int move = movePicker.next(); move != MovePicker.NO_MOVE; move = movePicker.next()) {
+				boolean quiet = movePicker.isQuiet(move);
+				position.makeMove(move);
+				int moveEvaluation;
+				if (position.isRepetition())
+					moveEvaluation = 0;
+				else if (bestMove == TranspositionTable.NO_MOVE)
+					moveEvaluation = -search(depth - 1, ply + 1, -beta, -alpha);
+				else {
+					// Later moves are expected to be worse than the first, which is cheap to confirm with an
+					// empty window. Only moves that turn out better are searched again with the full window.
+					moveEvaluation = -search(depth - 1, ply + 1, -alpha - 1, -alpha);
+					if (alpha < moveEvaluation && moveEvaluation < beta)
+						moveEvaluation = -search(depth - 1, ply + 1, -beta, -alpha);
+				}
+				position.unmakeMove(move);
+			
+				if (bestMove == TranspositionTable.NO_MOVE || moveEvaluation > bestEvaluation) {
+					bestEvaluation = moveEvaluation;
+					bestMove = move;
 				}
-				bestMaterialValue = best(bestMaterialValue, optimalEvaluation, position.whiteToMove);
+				if (bestEvaluation > alpha)
+					alpha = bestEvaluation;
+				// The opponent will avoid this position, so the remaining moves do not matter.
+				if (alpha >= beta) {
+					cutoffs++;
+					if (moveCount == 0)
+						firstMoveCutoffs++;
+					if (quiet)
+						rememberCutoff(move, depth, ply);
+					break;
+				}
+				moveCount++;
+			}
+		
+			// Evaluate positions that end the game. Checkmates sooner are worse for the player checkmated.
+			if (bestMove == TranspositionTable.NO_MOVE)
+				return position.inCheck() ? -(CHECKMATE - ply) : 0;
+		
+			if (stopped)
+				return 0;
+			TranspositionTable.Bound bound;
+			if (bestEvaluation <= originalAlpha)
+				bound = TranspositionTable.Bound.UPPER;
+			else if (bestEvaluation >= beta)
+				bound = TranspositionTable.Bound.LOWER;
+			else bound = TranspositionTable.Bound.EXACT;
+			table.store(position.getKey(), depth, evaluationToTable(bestEvaluation, ply), bound, bestMove);
+			return bestEvaluation;
+		}
+		
+		// Evaluates the position at the end of the search by searching captures and promotions only
+		// (quiescence search), so a position is not evaluated in the middle of a trade.
+		// The player to move may also decline to capture and keep the material value (stand pat),
+		// so only captures that improve on it are searched. In check, every move is searched instead,
+		// since standing pat is not an option.
+		private int quiesce(int ply, int alpha, int beta) {
+			nodes++;
+			checkTime();
+			if (stopped)
+				return 0;
+			Bitbase.Result endgameResult = Bitbase.probe(position);
+			int standPatEvaluation = evaluate(endgameResult);
+			if (ply >= MAX_PLY)
+				return standPatEvaluation;
+			boolean inCheck = position.inCheck();
+			int bestEvaluation = -INFINITY;
+			if (!inCheck) {
+				bestEvaluation = standPatEvaluation;
+				if (bestEvaluation >= beta)
+					return bestEvaluation;
+				if (bestEvaluation > alpha)
+					alpha = bestEvaluation;
+			}
+			MoveList moves = moveLists[ply];
+			if (moves == null)
+				moves = moveLists[ply] = new MoveList();
+			if (inCheck)
+				position.generateMoves(moves);
+			else position.generateCaptures(moves);
+		
+			// Search the most valuable captures first, since they are the most likely to cause a cutoff.
+			for (int index = 0; index < moves.size(); index++)
+				moves.setScore(index, MovePicker.captureOrder(position, moves.get(index)));
+			for (int index = 0; index < moves.size(); index++) {
+				int move = moves.selectBest(index);
+				// Skip captures that cannot raise the evaluation to alpha (delta pruning). This assumes the
+				// evaluation is the material value, which it is not in the endgame tables.
+				if (!inCheck && endgameResult == Bitbase.Result.UNKNOWN && standPatEvaluation + MovePicker.materialGain(position, move) + DELTA_MARGIN <= alpha)
+					break;
+				// Skip captures that lose material once the opponent recaptures.
+				if (!inCheck && position.staticExchangeEvaluation(move) < 0)
+					continue;
+				position.makeMove(move);
+				int moveEvaluation = -quiesce(ply + 1, -beta, -alpha);
+				position.unmakeMove(move);
+				
+				if (moveEvaluation > bestEvaluation)
+					bestEvaluation = moveEvaluation;
+				if (bestEvaluation > alpha)
+					alpha = bestEvaluation;
+				if (alpha >= beta)
+					break;
+			}
+			
+			// Without a legal move in check, the player to move is checkmated.
+			if (inCheck && moves.size() == 0)
+				return -(CHECKMATE - ply);
+			return bestEvaluation;
+		}
+		
+		// Evaluates the position for the player to move without searching, given its result in the endgame tables.
+		// Positions the tables cover are evaluated by their result, and others by their material value.
+		private int evaluate(Bitbase.Result endgameResult) {
+			switch (endgameResult) {
+			case WIN:
+				return KNOWN_WIN + Bitbase.progress(position);
+			case LOSS:
+				return -(KNOWN_WIN + Bitbase.progress(position));
+			case DRAW:
+				return 0;
+			default:
+				return position.whiteToMove ? position.materialValue : -position.materialValue;
+			}
+		}
+		
+		// Remembers a quiet move that caused a cutoff as a killer move for the ply, and credits it in the
+		// history table. Deeper searches are credited more, since their cutoffs save more work.
+		private void rememberCutoff(int move, int depth, int ply) {
+			if (killerMoves[ply][0] != move) {
+				killerMoves[ply][1] = killerMoves[ply][0];
+				killerMoves[ply][0] = move;
 			}
-		return bestMaterialValue;
+			int[][] colorHistory = history[position.whiteToMove ? 0 : 1];
+			int score = colorHistory[Move.sourceSquare(move)][Move.targetSquare(move)] += depth * depth;
+			if (score >= HISTORY_LIMIT)
+				for (int[] sourceHistory : colorHistory)
+					for (int target = 0; target < 64; target++)
+						sourceHistory[target] /= 2;
+		}
+		
+		// Stops all the searches once the hard deadline passes or the node limit is reached (but always lets
+		// the first iteration complete, so there is a move to play). Only the main search checks the limits,
+		// every so many positions.
+		private void checkTime() {
+			if (main && (nodes & TIME_CHECK_INTERVAL) == 0 && completedDepth > 0
+					&& (System.nanoTime() > hardDeadline || (nodeLimit > 0 && nodes >= nodeLimit)))
+				stopped = true;
+		}
+	}
+	
+	// Determines whether an evaluation is a forced checkmate (by either player), rather than a material evaluation.
+	public static boolean isCheckmateEvaluation(int evaluation) {
+		return Math.abs(evaluation) > CHECKMATE - MAX_PLY;
+	}
+	// Gets the number of moves (plies) until checkmate for a checkmate evaluation.
+	public static int pliesToCheckmate(int evaluation) {
+		return CHECKMATE - Math.abs(evaluation);
+	}
+	
+	// Converts a checkmate evaluation relative to the root into one relative to the current position
+	// for storage in the transposition table, since the same position may be reached at different plies.
+	private static int evaluationToTable(int evaluation, int ply) {
+		if (evaluation > CHECKMATE - MAX_PLY)
+			return evaluation + ply;
+		if (evaluation < -(CHECKMATE - MAX_PLY))
+			return evaluation - ply;
+		return evaluation;
+	}
+	// Converts a checkmate evaluation from the transposition table back to one relative to the root.
+	private static int evaluationFromTable(int evaluation, int ply) {
+		if (evaluation > CHECKMATE - MAX_PLY)
+			return evaluation - ply;
+		if (evaluation < -(CHECKMATE - MAX_PLY))
+			return evaluation + ply;
+		return evaluation;
+	}
+	
+	// Determines the material value that can be extracted from the juiciest square (from white's perspective),
+	// by the static exchange evaluation of the trades on each square the player to move can capture on.
+	// This is package-private so the benchmarks can measure it.
+	int bestMaterialValueToGrab(Position position) {
+		int bestCaptureValue = position.bestCaptureValue();
+		return position.whiteToMove ? bestCaptureValue : -bestCaptureValue;
 	}
 }
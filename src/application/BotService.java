@@ -0,0 +1,67 @@
+package application;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Runs bot searches in the background, so the GUI stays responsive while a bot thinks.
+// Nate Hunter - 10/17/2026
+public class BotService {
+	// The threads running bot searches, shared by every game (see GameSession). Searches of different games
+	// run in parallel, up to one per core, and further searches wait their turn in the order they are requested.
+	// They are daemon threads, so they do not keep the program running after the window closes.
+	private static final int SEARCH_THREAD_COUNT = Runtime.getRuntime().availableProcessors();
+	private static final ThreadPoolExecutor SEARCH_THREADS = new ThreadPoolExecutor(SEARCH_THREAD_COUNT, SEARCH_THREAD_COUNT,
+		0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), runnable -> {
+		Thread thread = new Thread(runnable, "Bot search");
+		thread.setDaemon(true);
+		return thread;
+	});
+	// The number of searches started, and the total time they waited for a search thread in nanoseconds
+	// (e.g. to measure how far a server is over capacity; see Server).
+	private static final LongAdder SEARCHES_STARTED = new LongAdder();
+	private static final LongAdder WAIT_NANOSECONDS = new LongAdder();
+	
+	// Starts a search for the bot's move in the specified position and returns the move as a future.
+	// The position is copied right away, so the caller may keep changing it during the search.
+	// Cancelling the future stops the search cooperatively (see Bot.stop), freeing its search thread
+	// for the next search.
+	public static CompletableFuture<Move> search(Bot bot, Position position) {
+		Position searchPosition = position.copy();
+		long requestTime = System.nanoTime();
+		CompletableFuture<Move> botMove = CompletableFuture.supplyAsync(() -> {
+			WAIT_NANOSECONDS.add(System.nanoTime() - requestTime);
+			SEARCHES_STARTED.increment();
+			return bot.move(searchPosition);
+		}, SEARCH_THREADS);
+		// Cancelling a CompletableFuture does not interrupt its task, so the bot is told to stop instead.
+		botMove.whenComplete((move, exception) -> {
+			if (botMove.isCancelled())
+				bot.stop();
+		});
+		return botMove;
+	}
+	
+	// Gets the number of search threads.
+	public static int getThreadCount() {
+		return SEARCH_THREAD_COUNT;
+	}
+	
+	// Gets the number of searches started so far.
+	public static long getSearchesStarted() {
+		return SEARCHES_STARTED.sum();
+	}
+	
+	// Gets the number of searches waiting for a search thread.
+	public static int getSearchesWaiting() {
+		return SEARCH_THREADS.getQueue().size();
+	}
+	
+	// Gets the average time the searches started so far waited for a search thread, in milliseconds.
+	public static double getAverageWaitMilliseconds() {
+		long searches = SEARCHES_STARTED.sum();
+		return (searches == 0) ? 0 : WAIT_NANOSECONDS.sum() / 1e6 / searches;
+	}
+}
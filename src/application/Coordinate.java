@@ -7,10 +7,10 @@ package application;
 public class Coordinate {
 	// The rank or rank delta of the coordinate vector.
 	// Absolute ranks range from 0 to 7 (chess-notation rank minus one).
-	public int rank;
+	public final int rank;
 	// The file or file delta of the coordinate vector.
 	// Absolute files range from 0 (A) to 7 (H).
-	public int file;
+	public final int file;
 	
 	// An invalid absolute rank or file (for disabling moves, etc.).
 	public static final int INVALID = -1;
@@ -43,6 +43,14 @@ public class Coordinate {
 	public static final Coordinate BLACK_PAWN_NON_CAPTURE_DIRECTION = S;
 	public static final Coordinate[] BLACK_PAWN_CAPTURE_DIRECTIONS = {SE, SW};
 	
+	// The absolute coordinate of each square, indexed by square index (see Bitboard).
+	// Coordinates cannot be modified, so these are shared rather than allocated for each use.
+	private static final Coordinate[] SQUARE_COORDINATES = new Coordinate[64];
+	static {
+		for (int square = 0; square < 64; square++)
+			SQUARE_COORDINATES[square] = new Coordinate(Bitboard.rank(square), Bitboard.file(square));
+	}
+	
 	// Creates a coordinate.
 	public Coordinate(int rank, int file) {
 		this.rank = rank;
@@ -81,6 +89,11 @@ public class Coordinate {
 		return new Coordinate(rank * multiplier, file * multiplier);
 	}
 	
+	// Gets the shared absolute coordinate of a square index.
+	public static Coordinate of(int square) {
+		return SQUARE_COORDINATES[square];
+	}
+	
 	// Gets an invalid coordinate.
 	public static Coordinate getInvalid() {
 		return new Coordinate(INVALID, INVALID);
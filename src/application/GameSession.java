@@ -0,0 +1,247 @@
+package application;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// A chess game: its position, the moves played so far, the clocks, and who plays each side.
+// Each game keeps all of its state here rather than in statics, so one program can host many games at once
+// (e.g. the GUI, or a server with a game per connection). Bot searches of every game run on the shared
+// search threads of BotService, and the bot's move is played on the search thread that found it.
+// The methods are synchronized, so a session may be used from several threads at once
+// (e.g. the thread playing a human's move and the thread playing the bot's reply).
+// Nate Hunter - 10/17/2026
+public class GameSession {
+	// The default number of moves (plies) the bot searches ahead.
+	public static final int DEFAULT_SEARCH_DEPTH = 4;
+	// The default size of each session's transposition table in megabytes.
+	public static final int DEFAULT_HASH_MEGABYTES = 16;
+
+	// Receives notice whenever the game changes (a move is played, the bot finishes thinking, or the game ends).
+	// It is called on the thread that changed the game, while the session is locked.
+	public static interface ChangeListener {
+		void gameChanged(GameSession session);
+	}
+
+	// Whether white is a human player or a bot.
+	private final boolean whiteHuman;
+	// Whether black is a human player or a bot.
+	private final boolean blackHuman;
+	// The number of moves (plies) the bot searches ahead (the maximum depth when playing with a clock).
+	private final int searchDepth;
+	// The number of threads each bot search uses.
+	private final int threads;
+	// The transposition table of the session's bot, kept from move to move. Each session has its own,
+	// so games do not overwrite each other's results.
+	private final TranspositionTable table;
+	// The opening book for the bot, or null to have the bot search from the first move.
+	private PolyglotBook openingBook = null;
+	// The listener for changes to the game, or null if none.
+	private ChangeListener changeListener = null;
+
+	// The position of the game.
+	private final Position position = Position.initialPosition();
+	// The moves of the game so far in algebraic notation, with move numbers and the result, if any.
+	private final StringBuilder history = new StringBuilder();
+	// The calculations of the bot's latest move.
+	private String calculations = "";
+	// Whether the game is over.
+	private boolean gameOver = false;
+	// The move the bot is searching for (null when the bot is not thinking).
+	private CompletableFuture<Move> pendingBotMove = null;
+
+	// The time left on each player's clock in milliseconds, or -1 when playing without a clock.
+	private long whiteMilliseconds = -1, blackMilliseconds = -1;
+	// The time added to a player's clock after each of their moves, in milliseconds.
+	private long incrementMilliseconds = 0;
+	// When the player to move started thinking, in System.nanoTime units.
+	private long turnStartTime = System.nanoTime();
+
+	// Creates a game from the initial position, with each side played by a human or a bot.
+	// The bot searches to the default depth on a single thread, so that however many sessions a program hosts,
+	// their searches only use the shared search threads of BotService (one per core).
+	public GameSession(boolean whiteHuman, boolean blackHuman) {
+		this(whiteHuman, blackHuman, DEFAULT_SEARCH_DEPTH, 1, DEFAULT_HASH_MEGABYTES);
+	}
+	// Creates a game from the initial position, with each side played by a human or a bot, and the bot
+	// searching to the specified depth with the specified number of threads and transposition table size.
+	// Each thread beyond the first runs a helper search (see Bot) outside the shared search threads of BotService,
+	// so more than one thread only suits a program hosting a single game (e.g. the GUI).
+	public GameSession(boolean whiteHuman, boolean blackHuman, int searchDepth, int threads, int hashMegabytes) {
+		this.whiteHuman = whiteHuman;
+		this.blackHuman = blackHuman;
+		this.searchDepth = searchDepth;
+		this.threads = threads;
+		table = new TranspositionTable(hashMegabytes);
+	}
+
+	// Sets the opening book for the bot, or null for none.
+	public synchronized void setOpeningBook(PolyglotBook openingBook) {
+		this.openingBook = openingBook;
+	}
+
+	// Sets the listener for changes to the game, or null for none.
+	public synchronized void setChangeListener(ChangeListener changeListener) {
+		this.changeListener = changeListener;
+	}
+
+	// Starts both players' clocks with the specified time and increment per move. The bot then manages its time
+	// (see TimeControl), and a player who moves after their time runs out loses.
+	public synchronized void setClock(long milliseconds, long incrementMilliseconds) {
+		whiteMilliseconds = milliseconds;
+		blackMilliseconds = milliseconds;
+		this.incrementMilliseconds = incrementMilliseconds;
+		turnStartTime = System.nanoTime();
+	}
+
+	// Gets a copy of the position, which the caller may keep or change without affecting the game.
+	public synchronized Position getPosition() {
+		return position.copy();
+	}
+
+	// Gets the piece on the specified square.
+	public synchronized char getPiece(Coordinate location) {
+		return position.getPiece(location);
+	}
+
+	// Determines whether it is white's turn.
+	public synchronized boolean whiteToMove() {
+		return position.whiteToMove;
+	}
+
+	// Gets the moves of the game so far, with move numbers and the result, if any.
+	public synchronized String getHistory() {
+		return history.toString();
+	}
+
+	// Gets the calculations of the bot's latest move.
+	public synchronized String getCalculations() {
+		return calculations;
+	}
+
+	// Gets the time left on a player's clock in milliseconds (counting the time the player to move
+	// has used so far), or -1 when playing without a clock.
+	public synchronized long getRemainingMilliseconds(boolean white) {
+		long remaining = white ? whiteMilliseconds : blackMilliseconds;
+		if (remaining < 0 || white != position.whiteToMove || gameOver)
+			return remaining;
+		return Math.max(0, remaining - (System.nanoTime() - turnStartTime) / 1000000);
+	}
+
+	// Determines whether the game is over.
+	public synchronized boolean isGameOver() {
+		return gameOver;
+	}
+
+	// Determines whether it is a human's turn in a game still in progress.
+	public synchronized boolean humanToMove() {
+		return !gameOver && (position.whiteToMove ? whiteHuman : blackHuman);
+	}
+
+	// Plays a move if it is legal and the game is not over, then has the bot reply if appropriate.
+	// Returns whether the move was played.
+	public synchronized boolean playMoveIfLegal(Coordinate source, Coordinate target, Piece.Type promotionType) {
+		if (gameOver)
+			return false;
+		// Determine whether the move is legal.
+		position.computeAllMoves();
+		List<Move> legalMoves = position.moves;
+		for (Move legalMove : legalMoves)
+			if (legalMove.matches(source, target, promotionType)) {
+				playMove(legalMove, legalMoves);
+				return true;
+			}
+		return false;
+	}
+
+	// Plays a legal move: updates the clock, logs the move, and checks whether the game has ended.
+	private void playMove(Move move, List<Move> legalMoves) {
+		// A player who runs out of time loses before their move is played.
+		if (whiteMilliseconds >= 0) {
+			long remaining = getRemainingMilliseconds(position.whiteToMove);
+			if (remaining <= 0) {
+				endGame(position.whiteToMove ? "0-1" : "1-0");
+				return;
+			}
+			remaining += incrementMilliseconds;
+			if (position.whiteToMove)
+				whiteMilliseconds = remaining;
+			else blackMilliseconds = remaining;
+			turnStartTime = System.nanoTime();
+		}
+
+		// Determine whether the move gives check or ends the game.
+		PositionTree.Status gameStatus = position.nextPosition(move).status();
+		if (gameStatus == PositionTree.Status.CHECK)
+			move.notateCheck();
+		else if (gameStatus == PositionTree.Status.CHECKMATE)
+			move.notateCheckmate();
+
+		// Log the move.
+		if (position.whiteToMove)
+			history.append(position.moveNumber).append(". ");
+		move.distinguishNotation(legalMoves);
+		history.append(move.getNotation()).append(' ');
+		// Playing the move switches whose turn it is, so it is done after logging the move.
+		boolean whiteMoved = position.whiteToMove;
+		position.playMove(move);
+
+		// Check if the game has ended.
+		// The game is also drawn when the same position occurs three times, or after fifty moves
+		// by each player without a capture or pawn move.
+		if (gameStatus == PositionTree.Status.CHECKMATE)
+			endGame(whiteMoved ? "1-0" : "0-1");
+		else if (gameStatus == PositionTree.Status.STALEMATE || position.isThreefoldRepetition() || position.isFiftyMoveDraw())
+			endGame("0.5-0.5");
+		else {
+			notifyChange();
+			playBotMoveIfAppropriate();
+		}
+	}
+
+	// Ends the game with the specified result.
+	private void endGame(String result) {
+		history.append(result).append(' ');
+		gameOver = true;
+		notifyChange();
+	}
+
+	// Starts the bot searching for its move if it is the bot's turn and it is not already thinking.
+	// The bot's move is played once the search finishes.
+	public synchronized void playBotMoveIfAppropriate() {
+		if (gameOver || humanToMove() || pendingBotMove != null)
+			return;
+		Bot bot = new Bot(searchDepth, threads, table);
+		bot.setOpeningBook(openingBook);
+		long remaining = getRemainingMilliseconds(position.whiteToMove);
+		if (remaining >= 0)
+			bot.setTimeControl(TimeControl.clock(remaining, incrementMilliseconds));
+		CompletableFuture<Move> botMove = BotService.search(bot, position);
+		pendingBotMove = botMove;
+		botMove.thenAccept(move -> {
+			synchronized (this) {
+				// The move is discarded if the search was cancelled in the meantime.
+				if (pendingBotMove != botMove)
+					return;
+				pendingBotMove = null;
+				calculations = bot.getCalculations();
+				if (move == null)
+					notifyChange();
+				else playMoveIfLegal(move.source, move.target, move.getPromotionType());
+			}
+		});
+	}
+
+	// Stops the bot from thinking, discarding its pending move (e.g. when the game is abandoned).
+	public synchronized void cancelBotMove() {
+		if (pendingBotMove != null) {
+			pendingBotMove.cancel(false);
+			pendingBotMove = null;
+		}
+	}
+
+	// Notifies the listener (if any) that the game has changed.
+	private void notifyChange() {
+		if (changeListener != null)
+			changeListener.gameChanged(this);
+	}
+}
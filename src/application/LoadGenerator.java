@@ -0,0 +1,194 @@
+package application;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Measures how a running Server holds up under many clients at once: its throughput (searches per second),
+// the latency clients see per search, how long searches queue for a search thread, and the memory each
+// connection costs.
+//
+// Each client opens a connection and plays a game against itself through it, asking for a move with
+// "position startpos moves ..." and "go" until the game has the specified number of moves (or no legal move).
+// Once every client has finished its game, the connections are still open, so the heap the server reports
+// then (less the heap before the clients connected) is spread over them to get the memory per connection.
+// Usage:
+//		LoadGenerator [-port N] [-clients N] [-moves N] [-depth N] [-nodes N]
+// Nate Hunter - 10/17/2026
+public class LoadGenerator {
+	// The port of the server.
+	private final int port;
+	// The search depth and node limit (0 for no limit) of each move.
+	private final int depth;
+	private final long nodes;
+
+	// Creates a load generator for the server on the specified local port, asking for moves searched to the
+	// specified depth and node limit (0 for no limit).
+	public LoadGenerator(int port, int depth, long nodes) {
+		this.port = port;
+		this.depth = depth;
+		this.nodes = nodes;
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int port = Server.DEFAULT_PORT;
+		int clients = 100;
+		int moves = 40;
+		int depth = 3;
+		long nodes = 0;
+		for (int index = 0; index + 1 < args.length; index += 2) {
+			String value = args[index + 1];
+			switch (args[index]) {
+			case "-port": port = Integer.parseInt(value); break;
+			case "-clients": clients = Integer.parseInt(value); break;
+			case "-moves": moves = Integer.parseInt(value); break;
+			case "-depth": depth = Integer.parseInt(value); break;
+			case "-nodes": nodes = Long.parseLong(value); break;
+			default: throw new IllegalArgumentException("Unknown option: " + args[index]);
+			}
+		}
+		new LoadGenerator(port, depth, nodes).run(clients, moves);
+	}
+
+	// Plays a game of the specified number of moves (plies) over each of the specified number of connections
+	// at once, and prints the measurements.
+	public void run(int clients, int moves) throws IOException, InterruptedException {
+		try (Connection statisticsConnection = new Connection()) {
+			Map<String, String> before = statisticsConnection.statistics();
+
+			// Each client plays its game, then keeps its connection open until the memory is measured.
+			CountDownLatch gamesFinished = new CountDownLatch(clients);
+			CountDownLatch memoryMeasured = new CountDownLatch(1);
+			ExecutorService clientThreads = Executors.newFixedThreadPool(clients);
+			List<Future<long[]>> clientLatencies = new ArrayList<Future<long[]>>();
+			long startTime = System.nanoTime();
+			for (int client = 0; client < clients; client++)
+				clientLatencies.add(clientThreads.submit(() -> {
+					Connection connection = null;
+					try {
+						connection = new Connection();
+						return connection.playGame(moves);
+					} finally {
+						// A client that fails counts as finished too, so it does not keep the others waiting.
+						gamesFinished.countDown();
+						memoryMeasured.await();
+						if (connection != null)
+							connection.close();
+					}
+				}));
+			gamesFinished.await();
+			double seconds = (System.nanoTime() - startTime) / 1e9;
+			Map<String, String> after = statisticsConnection.statistics();
+			memoryMeasured.countDown();
+			clientThreads.shutdown();
+
+			List<Long> latencies = new ArrayList<Long>();
+			for (Future<long[]> future : clientLatencies) {
+				try {
+					for (long latency : future.get())
+						latencies.add(latency);
+				} catch (ExecutionException exception) {
+					System.err.println("A client failed: " + exception.getCause());
+				}
+			}
+			Collections.sort(latencies);
+			long searches = latencies.size();
+			long serverSearches = Long.parseLong(after.get("searches")) - Long.parseLong(before.get("searches"));
+			long heapPerConnection = (Long.parseLong(after.get("heap")) - Long.parseLong(before.get("heap"))) / clients;
+			System.out.println(String.format("%d clients, %d searches in %.1f s: %.1f searches/s", clients, searches, seconds, searches / seconds));
+			if (searches > 0)
+				System.out.println(String.format("Latency per search (ms): average %.1f, median %.1f, 95th percentile %.1f, 99th percentile %.1f, maximum %.1f",
+					latencies.stream().mapToLong(Long::longValue).average().getAsDouble() / 1e6, percentile(latencies, 50),
+					percentile(latencies, 95), percentile(latencies, 99), latencies.get(latencies.size() - 1) / 1e6));
+			System.out.println("Server: " + serverSearches + " searches, average wait for a search thread (all searches so far) "
+				+ after.get("averagewait") + " ms, heap per connection " + heapPerConnection / 1024 + " KB");
+		}
+	}
+
+	// Gets a percentile of sorted latencies in milliseconds.
+	private static double percentile(List<Long> sortedLatencies, int percent) {
+		int index = (int)Math.ceil(percent / 100.0 * sortedLatencies.size()) - 1;
+		return sortedLatencies.get(Math.max(0, index)) / 1e6;
+	}
+
+	// A connection to the server.
+	private class Connection implements AutoCloseable {
+		// The socket, and its input and output.
+		private final Socket socket;
+		private final BufferedReader input;
+		private final PrintStream output;
+
+		// Connects to the server.
+		Connection() throws IOException {
+			socket = new Socket(InetAddress.getLoopbackAddress(), port);
+			socket.setTcpNoDelay(true);
+			input = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+			output = new PrintStream(socket.getOutputStream(), true);
+		}
+
+		// Plays a game of up to the specified number of moves (plies) from the initial position,
+		// returning the time each search took to answer in nanoseconds.
+		long[] playGame(int moves) throws IOException {
+			send("uci");
+			readUntil("uciok");
+			send("ucinewgame");
+			send("isready");
+			readUntil("readyok");
+			StringBuilder movesPlayed = new StringBuilder();
+			long[] latencies = new long[moves];
+			int ply = 0;
+			for (; ply < moves; ply++) {
+				send("position startpos" + (movesPlayed.length() > 0 ? " moves" + movesPlayed : ""));
+				long requestTime = System.nanoTime();
+				send("go depth " + depth + (nodes > 0 ? " nodes " + nodes : ""));
+				String bestMove = readUntil("bestmove").split("\\s+")[1];
+				latencies[ply] = System.nanoTime() - requestTime;
+				// The game is over once there is no legal move.
+				if (bestMove.equals("0000"))
+					break;
+				movesPlayed.append(' ').append(bestMove);
+			}
+			return Arrays.copyOf(latencies, Math.min(ply + 1, moves));
+		}
+
+		// Gets the server's statistics (see Server.statistics) as a map from each name to its value.
+		Map<String, String> statistics() throws IOException {
+			send("stats");
+			String[] tokens = readUntil("info string stats").split("\\s+");
+			Map<String, String> statistics = new HashMap<String, String>();
+			for (int index = 3; index + 1 < tokens.length; index += 2)
+				statistics.put(tokens[index], tokens[index + 1]);
+			return statistics;
+		}
+
+		// Sends a command.
+		private void send(String command) {
+			output.println(command);
+		}
+
+		// Reads lines until one starting with the specified text, and returns that line.
+		private String readUntil(String start) throws IOException {
+			String line;
+			while ((line = input.readLine()) != null)
+				if (line.startsWith(start))
+					return line;
+			throw new IOException("The server disconnected before sending " + start);
+		}
+
+		// Quits and closes the connection.
+		@Override
+		public void close() throws IOException {
+			send("quit");
+			socket.close();
+		}
+	}
+}
@@ -11,14 +11,10 @@ import javafx.scene.text.Font;
 // Nate Hunter - 05/15/2022
 public class Log {
 	// The text displayed in the log.
-	private static Label logText;
-	// The history of past moves.
-	private static String gameHistory = "";
-	// The calculations of the bot.
-	private static String botCalculations = "";
+	private Label logText;
 	
 	// Initializes the log in the GUI.
-	public static ScrollPane initialize() {
+	public ScrollPane initialize() {
 	    logText = new Label();
 	    logText.setFont(Font.font("Calibri", 13));
 	    logText.setTextFill(Color.WHITE);
@@ -35,20 +31,8 @@ public class Log {
 	    return log;
 	}
 	
-	// Appends text (typically a move) to the game history.
-	public static void appendToHistory(String text) {
-		gameHistory += text + ' ';
-		update();
-	}
-	
-	// Sets the bot calculations to display.
-	public static void writeCalculations(String calculations) {
-		botCalculations = calculations;
-		update();
-	}
-	
-	// Updates the log.
-	private static void update() {
+	// Updates the log with the history of past moves and the calculations of the bot.
+	public void update(String gameHistory, String botCalculations) {
 		logText.setText(gameHistory + "\n\n" + botCalculations);
 	}
 }
@@ -1,6 +1,7 @@
 package application;
 	
 import javafx.application.Application;
+import javafx.event.EventHandler;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.ScrollPane;
@@ -11,17 +12,21 @@ import javafx.scene.layout.StackPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.paint.Color;
 import javafx.stage.Stage;
+import javafx.stage.WindowEvent;
 
 // Runs the main GUI application.
 // Nate Hunter - 01/29/2022
 public class Main extends Application {
 	@Override
 	public void start(Stage primaryStage) {
+		// Start a game, played through the GUI.
+		Arbiter arbiter = new Arbiter();
+		
 		// Create an 8x8 chess board.
-		StackPane board = Board.initialize();
+		StackPane board = arbiter.board.initialize(arbiter.session.getPosition());
 	    
 	    // Create a text log.
-	    ScrollPane log = Log.initialize();
+	    ScrollPane log = arbiter.log.initialize();
 	    
 	    // Combine the chess board and text log horizontally.
 	    HBox windowContents = new HBox(board, log);
@@ -33,10 +38,17 @@ public class Main extends Application {
 		Stage window = primaryStage;
 		window.setTitle("Chess");
 		window.setScene(new Scene(windowContents));
+		// Stop the bot from thinking once the window closes.
+		window.setOnCloseRequest(new EventHandler<WindowEvent>() {
+			@Override
+			public void handle(WindowEvent event) {
+				arbiter.session.cancelBotMove();
+			}
+		});
 		window.show();
 		
 		// If white is a bot, the first move must be triggered.
-		Arbiter.playBotMoveIfAppropriate();
+		arbiter.session.playBotMoveIfAppropriate();
 	}
 	
 	public static void main(String[] args) {
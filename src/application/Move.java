@@ -14,64 +14,160 @@ public class Move {
 		TWO_SQUARE_PAWN
 	}
 	
+	// The move types in ordinal order (cached, since Type.values() copies the array on every call).
+	private static final Type[] TYPES = Type.values();
+	// The piece types in ordinal order.
+	private static final Piece.Type[] PIECE_TYPES = Piece.Type.values();
+	
+	// The layout of an encoded move, from the lowest bits: 6 bits of source square, 6 bits of target square,
+	// 3 bits of move type, and 3 bits of promotion piece type (EMPTY unless promoting).
+	// A move never targets its own source, so an encoded move is never 0.
+	private static final int TARGET_SHIFT = 6;
+	private static final int TYPE_SHIFT = 12;
+	private static final int PROMOTION_SHIFT = 15;
+	
 	// The coordinates from which and to which the piece is moving.
-	public Coordinate source, target;
+	public final Coordinate source, target;
 	// The move type (for special cases).
-	public Type type;
-	// The notation of the move.
-	public String notation;
+	public final Type type;
+	// The move encoded as an int (see encode).
+	private final int encodedMove;
+	// The pieces on the source and target squares before the move, kept for notating the move.
+	private final char sourcePiece, targetPiece;
 	
-	// Creates a move.
-	public Move(Coordinate source, char sourcePiece, Coordinate target, char targetPiece, Type type) {
-		this.source = source.copy();
-		this.target = target.copy();
-		this.type = type;
-		notate(sourcePiece, targetPiece);
+	// The notation is only needed for the few moves that are displayed or logged, so it is
+	// built on first use (see getNotation) rather than whenever a move is created.
+	// The notation of the move, or null if it has not been built yet.
+	private String notation;
+	// The source file and/or rank added to distinguish the move from others with the same notation.
+	private String distinguishingNotation = "";
+	// The suffix notating check or checkmate (empty if neither).
+	private String checkNotation = "";
+	
+	// Creates a move from its encoding (see encode) and the pieces on its source and target squares.
+	// The coordinates are shared rather than allocated, since coordinates of squares are never modified (see Coordinate.of).
+	public Move(int encodedMove, char sourcePiece, char targetPiece) {
+		this.encodedMove = encodedMove;
+		this.source = Coordinate.of(sourceSquare(encodedMove));
+		this.target = Coordinate.of(targetSquare(encodedMove));
+		this.type = type(encodedMove);
+		this.sourcePiece = sourcePiece;
+		this.targetPiece = targetPiece;
+	}
+	
+	// Encodes a move as an int for the search, which generates and plays moves without creating Move objects.
+	// The promotion piece type is EMPTY unless the move is a promotion.
+	public static int encode(int sourceSquare, int targetSquare, Type type, Piece.Type promotionType) {
+		return sourceSquare | (targetSquare << TARGET_SHIFT) | (type.ordinal() << TYPE_SHIFT)
+			| (promotionType.ordinal() << PROMOTION_SHIFT);
+	}
+	// Gets the source square of an encoded move.
+	public static int sourceSquare(int encodedMove) {
+		return encodedMove & 63;
+	}
+	// Gets the target square of an encoded move.
+	public static int targetSquare(int encodedMove) {
+		return (encodedMove >>> TARGET_SHIFT) & 63;
+	}
+	// Gets the type of an encoded move.
+	public static Type type(int encodedMove) {
+		return TYPES[(encodedMove >>> TYPE_SHIFT) & 7];
+	}
+	// Gets the piece type an encoded move promotes to (EMPTY if it is not a promotion).
+	public static Piece.Type promotionType(int encodedMove) {
+		return PIECE_TYPES[(encodedMove >>> PROMOTION_SHIFT) & 7];
+	}
+	
+	// Gets the piece type the move promotes to (EMPTY if it is not a promotion).
+	public Piece.Type getPromotionType() {
+		return promotionType(encodedMove);
 	}
 	
 	// Determines whether a move matches the coordinates supplied.
 	public boolean matches(Coordinate source, Coordinate target) {
 		return this.source.equals(source) && this.target.equals(target);
 	}
+	// Determines whether a move matches the coordinates supplied and, if it is a promotion, the promotion piece type.
+	public boolean matches(Coordinate source, Coordinate target, Piece.Type promotionType) {
+		return matches(source, target) && (type != Type.PROMOTION || getPromotionType() == promotionType);
+	}
 	// Determines whether a move matches the coordinates of the move supplied.
 	public boolean matches(Move move) {
 		return move.source.equals(source) && move.target.equals(target);
 	}
 	
-	// Notates a move.
-	// Information on check, checkmate, and whether different moves have the same notation
-	// is typically unavailable when this method is called; it must be added in later.
-	private void notate(char sourcePiece, char targetPiece) {
-		notation = "";
-		
+	// Gets the move encoded as an int for compact storage (e.g. in a TranspositionTable).
+	public int pack() {
+		return encodedMove;
+	}
+	
+	// Gets the notation of the move, building it if needed.
+	public String getNotation() {
+		if (notation == null)
+			notation = notate();
+		return notation;
+	}
+	
+	// Notates the move, including any distinguishing source and check suffix added so far.
+	private String notate() {
 		// Castling is a special case for notation.
 		if (type == Type.CASTLE) {
 			boolean kingside = (target.file > source.file);
-			notation += kingside ? "O-O" : "O-O-O";
+			return (kingside ? "O-O" : "O-O-O") + checkNotation;
 		}
-		else {
-			// Notate the source piece if applicable.
-			boolean pawnMove = (Piece.type(sourcePiece) == Piece.Type.PAWN);
-			if (!pawnMove)
-				notation += Character.toUpperCase(sourcePiece);
-					
-			// Notate the capture if applicable.
-			boolean capture = (!Piece.isEmpty(targetPiece) || type == Type.EN_PASSANT);
-			if (capture) {
-				if (pawnMove)
-					notation += notateFile(source.file);
-				notation += 'x';
-			}
-			
-			// Notate the target square.
-			notation += notateFile(target.file);
-			notation += notateRank(target.rank);
-			
-			// Notate the promotion if applicable.
-			if (type == Type.PROMOTION)
-				// All pawns promote to queen for simplicity.
-				notation += "=Q";
+		StringBuilder notation = new StringBuilder();
+		// Notate the source piece if applicable.
+		boolean pawnMove = (Piece.type(sourcePiece) == Piece.Type.PAWN);
+		if (!pawnMove)
+			notation.append(Character.toUpperCase(sourcePiece)).append(distinguishingNotation);
+		
+		// Notate the capture if applicable.
+		boolean capture = (!Piece.isEmpty(targetPiece) || type == Type.EN_PASSANT);
+		if (capture) {
+			if (pawnMove)
+				notation.append(notateFile(source.file));
+			notation.append('x');
 		}
+		
+		// Notate the target square.
+		notation.append(notateFile(target.file)).append(notateRank(target.rank));
+		
+		// Notate the promotion if applicable.
+		if (type == Type.PROMOTION)
+			notation.append('=').append(promotionLetter(getPromotionType()));
+		return notation.append(checkNotation).toString();
+	}
+	// Notates the move without the distinguishing source or check suffix, for comparing with other moves.
+	private String baseNotation() {
+		String distinguishing = distinguishingNotation;
+		String check = checkNotation;
+		distinguishingNotation = "";
+		checkNotation = "";
+		String baseNotation = notate();
+		distinguishingNotation = distinguishing;
+		checkNotation = check;
+		return baseNotation;
+	}
+	
+	// Gets the uppercase letter of a promotion piece type.
+	private static char promotionLetter(Piece.Type promotionType) {
+		return Character.toUpperCase(Piece.fromIndex(Piece.index(promotionType, true)));
+	}
+	
+	// Notates the move by its source and target squares (e.g. "e2e4", or "e7e8q" for a promotion),
+	// as used by perft divide output and engine protocols.
+	public String coordinateNotation() {
+		return coordinateNotation(encodedMove);
+	}
+	// Notates an encoded move by its source and target squares.
+	public static String coordinateNotation(int encodedMove) {
+		int sourceSquare = sourceSquare(encodedMove);
+		int targetSquare = targetSquare(encodedMove);
+		String coordinateNotation = "" + notateFile(Bitboard.file(sourceSquare)) + notateRank(Bitboard.rank(sourceSquare))
+			+ notateFile(Bitboard.file(targetSquare)) + notateRank(Bitboard.rank(targetSquare));
+		if (type(encodedMove) == Type.PROMOTION)
+			coordinateNotation += Character.toLowerCase(promotionLetter(promotionType(encodedMove)));
+		return coordinateNotation;
 	}
 	
 	// Notates a rank.
@@ -87,13 +183,13 @@ public class Move {
 	
 	// Notates that the move comes with check.
 	public void notateCheck() {
-		if (!notation.endsWith("+"))
-			notation += '+';
+		checkNotation = "+";
+		notation = null;
 	}
 	// Notates that the move comes with checkmate.
 	public void notateCheckmate() {
-		if (!notation.endsWith("#"))
-			notation += '#';
+		checkNotation = "#";
+		notation = null;
 	}
 	
 	// Updates the notation if needed to distinguish the move from others with the same notation.
@@ -103,16 +199,14 @@ public class Move {
 		boolean notationUnique = true;
 		boolean sourceFileUniqueForNotation = true;
 		boolean sourceRankUniqueForNotation = true;
+		String baseNotation = baseNotation();
 		for (Move move : allMoves)
-			if (notation.equals(move.notation)) {
-				boolean sameMoveAsSelf = matches(move);
-				if (!sameMoveAsSelf) {
-					notationUnique = false;
-					if (source.file == move.source.file)
-						sourceFileUniqueForNotation = false;
-					if (source.rank == move.source.rank)
-						sourceRankUniqueForNotation = false;
-				}
+			if (!matches(move) && baseNotation.equals(move.baseNotation())) {
+				notationUnique = false;
+				if (source.file == move.source.file)
+					sourceFileUniqueForNotation = false;
+				if (source.rank == move.source.rank)
+					sourceRankUniqueForNotation = false;
 			}
 		
 		// Update the notation as needed.
@@ -128,14 +222,14 @@ public class Move {
 					sourceNotation += notateRank(source.rank);
 				}
 			}
-			int sourceNotationIndex = 1;
-			notation = notation.substring(0, sourceNotationIndex) + sourceNotation + notation.substring(sourceNotationIndex);
+			distinguishingNotation = sourceNotation;
+			notation = null;
 		}
 	}
 	
 	// Reveals the move notation for clearer logging.
 	@Override
 	public String toString() {
-		return notation;
+		return getNotation();
 	}
 }
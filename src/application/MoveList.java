@@ -0,0 +1,83 @@
+package application;
+
+import java.util.Arrays;
+
+// A list of encoded moves (see Move.encode), used by the search in place of a List<Move>.
+// A search keeps one list per ply and refills it at each position, so generating moves does not allocate.
+// Each move can be given a score for ordering, so the most promising moves are searched first (see selectBest).
+// Nate Hunter - 10/17/2026
+public class MoveList {
+	// The initial capacity, enough for the moves of nearly any position (the most legal moves known is 218).
+	private static final int INITIAL_CAPACITY = 256;
+
+	// The encoded moves.
+	private int[] moves = new int[INITIAL_CAPACITY];
+	// The ordering score of each move (higher is searched first).
+	private int[] scores = new int[INITIAL_CAPACITY];
+	// The number of moves in the list.
+	private int size;
+
+	// Removes every move from the list.
+	public void clear() {
+		size = 0;
+	}
+
+	// Adds an encoded move to the end of the list.
+	public void add(int move) {
+		if (size == moves.length) {
+			moves = Arrays.copyOf(moves, size * 2);
+			scores = Arrays.copyOf(scores, size * 2);
+		}
+		scores[size] = 0;
+		moves[size++] = move;
+	}
+
+	// Gets the encoded move at the specified index.
+	public int get(int index) {
+		return moves[index];
+	}
+
+	// Gets the number of moves in the list.
+	public int size() {
+		return size;
+	}
+
+	// Swaps the moves (and their scores) at the specified indices (e.g. to search a move earlier).
+	public void swap(int indexA, int indexB) {
+		int move = moves[indexA];
+		moves[indexA] = moves[indexB];
+		moves[indexB] = move;
+		int score = scores[indexA];
+		scores[indexA] = scores[indexB];
+		scores[indexB] = score;
+	}
+
+	// Sets the ordering score of the move at the specified index.
+	public void setScore(int index, int score) {
+		scores[index] = score;
+	}
+	// Gets the ordering score of the move at the specified index.
+	public int getScore(int index) {
+		return scores[index];
+	}
+
+	// Moves the highest-scoring move at or after the specified index to that index and returns it.
+	// Calling this for each index in turn visits the moves from best to worst, but only sorts as far
+	// as the search gets, which is often just the first move or two when a move causes a cutoff.
+	public int selectBest(int index) {
+		int bestIndex = index;
+		for (int otherIndex = index + 1; otherIndex < size; otherIndex++)
+			if (scores[otherIndex] > scores[bestIndex])
+				bestIndex = otherIndex;
+		swap(index, bestIndex);
+		return moves[index];
+	}
+
+	// Gets the index of the encoded move, or -1 if the list does not contain it.
+	public int indexOf(int move) {
+		for (int index = 0; index < size; index++)
+			if (moves[index] == move)
+				return index;
+		return -1;
+	}
+}
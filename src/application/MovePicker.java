@@ -0,0 +1,169 @@
+package application;
+
+// Picks the legal moves of a position one at a time for the search, in stages from the most to the least
+// promising: the hash move, captures that do not lose material, killer moves, other quiet moves,
+// and finally captures that lose material.
+// Each stage is only generated once the stages before it run out, so a position where an early move
+// causes a cutoff (often the hash move or the first capture) never generates its quiet moves at all.
+// A picker is reused from one position to the next (see reset), so picking moves does not allocate.
+// Nate Hunter - 10/17/2026
+public class MovePicker {
+	// The stages of picking, in order.
+	private static enum Stage {
+		HASH_MOVE, GENERATE_CAPTURES, GOOD_CAPTURES, KILLER_MOVES, GENERATE_QUIETS, QUIETS, BAD_CAPTURES, DONE
+	}
+
+	// Returned by next once every move has been picked.
+	public static final int NO_MOVE = TranspositionTable.NO_MOVE;
+	// Subtracted from the order of captures that lose material (by static exchange evaluation),
+	// so they sort after every capture that does not.
+	private static final int BAD_CAPTURE_PENALTY = 1 << 20;
+
+	// The position the moves are picked for.
+	private final Position position;
+	// The captures and promotions, ordered by captureOrder (lowered by BAD_CAPTURE_PENALTY for losing captures).
+	private final MoveList captures = new MoveList();
+	// The quiet moves, ordered by history.
+	private final MoveList quiets = new MoveList();
+	// The current stage.
+	private Stage stage;
+	// The best move from the transposition table (NO_MOVE if none), and the killer moves of the ply.
+	private int hashMove;
+	private int[] killerMoves;
+	// The history scores of the quiet moves for the active player, indexed by source and target square.
+	private int[][] history;
+	// The index of the next capture, killer move, and quiet move to pick.
+	private int captureIndex;
+	private int killerIndex;
+	private int quietIndex;
+
+	// Creates a picker for the position. The position's moves are picked after calling reset.
+	public MovePicker(Position position) {
+		this.position = position;
+	}
+
+	// Starts picking the moves of the position as it is now.
+	// The hash move and killer moves are checked for legality before they are picked, since they come
+	// from other positions. The killer moves must be distinct, and are read as picking goes, so they should
+	// not change until then.
+	public void reset(int hashMove, int[] killerMoves, int[][] history) {
+		this.hashMove = hashMove;
+		this.killerMoves = killerMoves;
+		this.history = history;
+		stage = Stage.HASH_MOVE;
+		captureIndex = 0;
+		killerIndex = 0;
+		quietIndex = 0;
+	}
+
+	// Picks the next move, or returns NO_MOVE once every move has been picked.
+	public int next() {
+		while (true) {
+			switch (stage) {
+			case HASH_MOVE:
+				stage = Stage.GENERATE_CAPTURES;
+				if (hashMove != NO_MOVE && position.isLegal(hashMove))
+					return hashMove;
+				break;
+			case GENERATE_CAPTURES:
+				position.generateCaptures(captures);
+				for (int index = 0; index < captures.size(); index++) {
+					int capture = captures.get(index);
+					int order = captureOrder(position, capture);
+					if (position.staticExchangeEvaluation(capture) < 0)
+						order -= BAD_CAPTURE_PENALTY;
+					captures.setScore(index, order);
+				}
+				stage = Stage.GOOD_CAPTURES;
+				break;
+			case GOOD_CAPTURES:
+				// The losing captures are left in place for the last stage.
+				if (captureIndex < captures.size()) {
+					int move = captures.selectBest(captureIndex);
+					if (captures.getScore(captureIndex) >= 0) {
+						captureIndex++;
+						if (move != hashMove)
+							return move;
+						break;
+					}
+				}
+				stage = Stage.KILLER_MOVES;
+				break;
+			case KILLER_MOVES:
+				if (killerIndex < killerMoves.length) {
+					int move = killerMoves[killerIndex++];
+					if (move != NO_MOVE && move != hashMove && position.isLegal(move) && isQuiet(move))
+						return move;
+					break;
+				}
+				stage = Stage.GENERATE_QUIETS;
+				break;
+			case GENERATE_QUIETS:
+				position.generateQuiets(quiets);
+				for (int index = 0; index < quiets.size(); index++) {
+					int quiet = quiets.get(index);
+					quiets.setScore(index, history[Move.sourceSquare(quiet)][Move.targetSquare(quiet)]);
+				}
+				stage = Stage.QUIETS;
+				break;
+			case QUIETS:
+				if (quietIndex < quiets.size()) {
+					int move = quiets.selectBest(quietIndex++);
+					// A legal quiet killer move was already picked in its own stage.
+					if (move != hashMove && !isKillerMove(move))
+						return move;
+					break;
+				}
+				stage = Stage.BAD_CAPTURES;
+				break;
+			case BAD_CAPTURES:
+				if (captureIndex < captures.size()) {
+					int move = captures.selectBest(captureIndex++);
+					if (move != hashMove)
+						return move;
+					break;
+				}
+				stage = Stage.DONE;
+				break;
+			case DONE:
+				return NO_MOVE;
+			}
+		}
+	}
+
+	// Determines whether a move of the position is quiet (neither a capture nor a promotion).
+	public boolean isQuiet(int move) {
+		Move.Type type = Move.type(move);
+		return type != Move.Type.PROMOTION && type != Move.Type.EN_PASSANT
+			&& Piece.isEmpty(position.getPiece(Move.targetSquare(move)));
+	}
+
+	// Determines whether a move is one of the killer moves of the ply.
+	private boolean isKillerMove(int move) {
+		for (int killerMove : killerMoves)
+			if (move == killerMove)
+				return true;
+		return false;
+	}
+
+	// Orders captures by most valuable victim (material gained), then least valuable attacker (MVV-LVA).
+	// The order follows the material gained first, which delta pruning in quiescence search relies on.
+	public static int captureOrder(Position position, int move) {
+		// Piece types are ordered from king to pawn, so less valuable attackers have higher ordinals.
+		Piece.Type attackerType = Piece.type(position.getPiece(Move.sourceSquare(move)));
+		return materialGain(position, move) * 8 + attackerType.ordinal();
+	}
+
+	// Gets the material the player to move gains by the move (the captured piece and any promotion).
+	public static int materialGain(Position position, int move) {
+		int gain = Math.abs(Piece.materialValue(position.getPiece(Move.targetSquare(move))));
+		Move.Type type = Move.type(move);
+		if (type == Move.Type.EN_PASSANT)
+			gain = Math.abs(Piece.materialValue('P'));
+		else if (type == Move.Type.PROMOTION) {
+			char promotedPiece = Piece.fromIndex(Piece.index(Move.promotionType(move), true));
+			gain += Math.abs(Piece.materialValue(promotedPiece)) - Math.abs(Piece.materialValue('P'));
+		}
+		return gain;
+	}
+}
@@ -0,0 +1,186 @@
+package application;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Counts the positions reachable from a position in exactly a given number of moves (perft).
+// Node counts are known for standard test positions, so they check the move generator for bugs,
+// and timing them measures the throughput of generateMoves and makeMove in nodes per second.
+//
+// Usage:
+//		Perft                                      runs the reference suite and compares the known counts
+//		Perft <depth> [fen] [-divide] [-parallel]  counts from the position (default: the initial position)
+// -divide prints the count below each root move, for finding the line where two generators disagree.
+// -parallel splits the root moves across all cores.
+// Nate Hunter - 10/16/2026
+public class Perft {
+	// Reference positions and their known node counts by depth (starting at depth 1).
+	// Positions 4 and 5 exercise promotions (including underpromotions) and checks.
+	private static final String[] SUITE_FENS = {
+		"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+		"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+		"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+		"r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+		"rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+	};
+	private static final long[][] SUITE_COUNTS = {
+		{20, 400, 8902, 197281, 4865609},
+		{48, 2039, 97862, 4085603},
+		{14, 191, 2812, 43238, 674624},
+		{6, 264, 9467, 422333},
+		{44, 1486, 62379, 2103487},
+	};
+
+	// Whether to count the final ply in bulk (counting legal moves rather than visiting each position).
+	private final boolean bulkCounting;
+
+	// Creates a perft counter.
+	public Perft(boolean bulkCounting) {
+		this.bulkCounting = bulkCounting;
+	}
+
+	// Counts the positions reachable from the position in exactly the specified number of moves.
+	// Moves are made and unmade in place, so the position is unchanged when this method returns.
+	public long count(Position position, int depth) {
+		MoveList[] moveLists = new MoveList[depth + 1];
+		for (int remainingDepth = 0; remainingDepth <= depth; remainingDepth++)
+			moveLists[remainingDepth] = new MoveList();
+		return count(position, depth, moveLists);
+	}
+	// Counts the positions using a reusable move list for each remaining depth.
+	private long count(Position position, int depth, MoveList[] moveLists) {
+		if (depth == 0)
+			return 1;
+		MoveList moves = moveLists[depth];
+		position.generateMoves(moves);
+		// At the last ply, each legal move counts as one position without playing it.
+		if (bulkCounting && depth == 1)
+			return moves.size();
+		long nodes = 0;
+		for (int index = 0; index < moves.size(); index++) {
+			int move = moves.get(index);
+			position.makeMove(move);
+			nodes += count(position, depth - 1, moveLists);
+			position.unmakeMove(move);
+		}
+		return nodes;
+	}
+
+	// Counts the positions below each legal root move.
+	// With parallel set, each root move is counted on its own copy of the position in a fork-join pool.
+	public Map<Move, Long> divide(Position position, int depth, boolean parallel) {
+		Map<Move, Long> nodesByMove = new LinkedHashMap<Move, Long>();
+		position.computeAllMoves();
+		List<Move> moves = position.moves;
+		if (!parallel) {
+			for (Move move : moves) {
+				position.makeMove(move);
+				nodesByMove.put(move, count(position, depth - 1));
+				position.unmakeMove(move);
+			}
+			return nodesByMove;
+		}
+
+		Map<Move, RecursiveTask<Long>> tasksByMove = new LinkedHashMap<Move, RecursiveTask<Long>>();
+		for (Move move : moves) {
+			final Position futurePosition = position.nextPosition(move);
+			RecursiveTask<Long> task = new RecursiveTask<Long>() {
+				private static final long serialVersionUID = 1L;
+				@Override
+				protected Long compute() {
+					return count(futurePosition, depth - 1);
+				}
+			};
+			tasksByMove.put(move, task);
+			ForkJoinPool.commonPool().execute(task);
+		}
+		for (Map.Entry<Move, RecursiveTask<Long>> taskByMove : tasksByMove.entrySet())
+			nodesByMove.put(taskByMove.getKey(), taskByMove.getValue().join());
+		return nodesByMove;
+	}
+
+	// Counts the positions from the position, splitting the root moves across cores if parallel is set.
+	public long count(Position position, int depth, boolean parallel) {
+		if (!parallel || depth < 2)
+			return count(position, depth);
+		long nodes = 0;
+		for (long moveNodes : divide(position, depth, true).values())
+			nodes += moveNodes;
+		return nodes;
+	}
+
+	public static void main(String[] args) {
+		boolean divide = false;
+		boolean parallel = false;
+		List<String> arguments = new ArrayList<String>();
+		for (String arg : args) {
+			if (arg.equals("-divide"))
+				divide = true;
+			else if (arg.equals("-parallel"))
+				parallel = true;
+			else arguments.add(arg);
+		}
+		Perft perft = new Perft(true);
+
+		if (arguments.isEmpty()) {
+			runSuite(perft, parallel);
+			return;
+		}
+		int depth = Integer.parseInt(arguments.get(0));
+		Position position = (arguments.size() > 1)
+			? Position.fromFen(String.join(" ", arguments.subList(1, arguments.size())))
+			: Position.initialPosition();
+
+		if (divide) {
+			long startTime = System.nanoTime();
+			Map<Move, Long> nodesByMove = perft.divide(position, depth, parallel);
+			long nanoseconds = System.nanoTime() - startTime;
+			long nodes = 0;
+			for (Map.Entry<Move, Long> nodesByMoveEntry : nodesByMove.entrySet()) {
+				System.out.println(nodesByMoveEntry.getKey().coordinateNotation() + ": " + nodesByMoveEntry.getValue());
+				nodes += nodesByMoveEntry.getValue();
+			}
+			System.out.println();
+			System.out.println("Moves: " + nodesByMove.size());
+			printHeader();
+			printRow("", depth, nodes, -1, nanoseconds);
+			return;
+		}
+		printHeader();
+		for (int currentDepth = 1; currentDepth <= depth; currentDepth++) {
+			long startTime = System.nanoTime();
+			long nodes = perft.count(position, currentDepth, parallel);
+			printRow("", currentDepth, nodes, -1, System.nanoTime() - startTime);
+		}
+	}
+
+	// Runs the reference suite, printing each count next to the known count.
+	private static void runSuite(Perft perft, boolean parallel) {
+		printHeader();
+		boolean allCorrect = true;
+		for (int index = 0; index < SUITE_FENS.length; index++) {
+			Position position = Position.fromFen(SUITE_FENS[index]);
+			for (int depth = 1; depth <= SUITE_COUNTS[index].length; depth++) {
+				long startTime = System.nanoTime();
+				long nodes = perft.count(position, depth, parallel);
+				long expected = SUITE_COUNTS[index][depth - 1];
+				printRow("#" + (index + 1), depth, nodes, expected, System.nanoTime() - startTime);
+				allCorrect &= (nodes == expected);
+			}
+		}
+		System.out.println(allCorrect ? "All counts match." : "MISMATCH: the move generator has a bug.");
+	}
+
+	// Prints the header of the results table.
+	private static void printHeader() {
+		System.out.println(String.format("%-8s %5s %14s %14s %10s %12s", "Position", "Depth", "Nodes", "Expected", "Time (ms)", "NPS"));
+	}
+	// Prints a row of the results table. An expected count of -1 means the count is unknown.
+	private static void printRow(String label, int depth, long nodes, long expected, long nanoseconds) {
+		long milliseconds = nanoseconds / 1000000;
+		long nodesPerSecond = (nanoseconds == 0) ? 0 : nodes * 1000000000L / nanoseconds;
+		String expectedText = (expected < 0) ? "" : (expected == nodes) ? "ok" : "" + expected;
+		System.out.println(String.format("%-8s %5d %14d %14s %10d %12d", label, depth, nodes, expectedText, milliseconds, nodesPerSecond));
+	}
+}
@@ -25,6 +25,12 @@ public class Piece {
 		PAWN
 	}
 	
+	// The number of distinct pieces (six types for each of two colors).
+	// Data stored per piece (such as bitboards) is indexed by Piece.index.
+	public static final int COUNT = 12;
+	// The pieces in index order: white pieces first, then black pieces, each from king to pawn.
+	private static final char[] PIECES_BY_INDEX = {'K', 'Q', 'R', 'B', 'N', 'P', 'k', 'q', 'r', 'b', 'n', 'p'};
+	
 	// Gets the color of the piece.
 	public static Color color(char piece) {
 		// Capital letters represent white pieces, consistent with Lichess URLs.
@@ -74,6 +80,24 @@ public class Piece {
 		}
 	}
 	
+	// Gets the index of the piece (from 0 to COUNT - 1), or -1 for an empty piece.
+	public static int index(char piece) {
+		Type pieceType = type(piece);
+		if (pieceType == Type.EMPTY)
+			return -1;
+		return index(pieceType, isWhite(piece));
+	}
+	// Gets the index of the piece with the specified type and color.
+	public static int index(Type pieceType, boolean white) {
+		// The EMPTY type comes first, so the king has ordinal 1.
+		int typeIndex = pieceType.ordinal() - 1;
+		return white ? typeIndex : typeIndex + 6;
+	}
+	// Gets the piece with the specified index.
+	public static char fromIndex(int index) {
+		return PIECES_BY_INDEX[index];
+	}
+	
 	// Gets the Unicode text representing the piece type (used in the GUI display).
 	public static String unicodeType(char piece) {
 		Type pieceType = type(piece);
@@ -134,14 +158,4 @@ public class Piece {
 		int materialValue = magnitude * direction;
 		return materialValue;
 	}
-	
-	// Returns a queen of the same color as the pawn to be promoted.
-	public static char promoteToQueen(char pawn) {
-		Color pawnColor = color(pawn);
-		switch (pawnColor) {
-		case WHITE: return 'Q';
-		case BLACK: return 'q';
-		default: return EMPTY;
-		}
-	}
 }
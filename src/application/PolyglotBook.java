@@ -0,0 +1,228 @@
+package application;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// An opening book in the Polyglot format, which most chess programs can read and write.
+// A book file is a sorted array of 16-byte entries, each holding a position key, a move, and a weight
+// (how often the move should be played relative to the other moves of the position).
+//
+// The file is memory-mapped rather than read, so the operating system pages in only the parts of the book
+// that lookups touch, and a book of hundreds of megabytes costs no heap. A lookup binary-searches the
+// entries by key directly in the mapped file.
+//
+// Polyglot keys are computed like Zobrist keys (see Zobrist), but from a fixed table of 781 random
+// numbers published with the format. The table is read from a text file of hexadecimal numbers
+// (e.g. the Random64 array from the Polyglot book format description, copied as is), since
+// a book only works with the exact numbers it was built with.
+// Nate Hunter - 10/17/2026
+public class PolyglotBook {
+	// The number of bytes per book entry.
+	private static final int ENTRY_BYTES = 16;
+	// The number of random numbers in the key table.
+	private static final int RANDOM_COUNT = 781;
+	// The offsets of the castling, en passant, and side to move numbers in the key table.
+	private static final int CASTLING_OFFSET = 768;
+	private static final int EN_PASSANT_OFFSET = 772;
+	private static final int WHITE_TO_MOVE_OFFSET = 780;
+	// The most bytes mapped at once (a single mapping is limited to 2 GB), as a whole number of entries.
+	private static final int ENTRIES_PER_SEGMENT = (1 << 30) / ENTRY_BYTES;
+	// The piece type of each Polyglot promotion number (0 means no promotion).
+	private static final Piece.Type[] PROMOTION_TYPES = {Piece.Type.EMPTY, Piece.Type.KNIGHT, Piece.Type.BISHOP, Piece.Type.ROOK, Piece.Type.QUEEN};
+	// Matches the hexadecimal numbers in a key table file.
+	private static final Pattern HEXADECIMAL_NUMBER = Pattern.compile("0[xX]([0-9a-fA-F]{1,16})");
+
+	// The mapped segments of the book file, in order.
+	private final MappedByteBuffer[] segments;
+	// The number of entries in the book.
+	private final long entryCount;
+	// The random numbers the book's keys are built from.
+	private final long[] randoms;
+
+	// Opens the book file with the key table from the specified text file.
+	public PolyglotBook(Path bookPath, Path randomsPath) throws IOException {
+		randoms = readRandoms(randomsPath);
+		try (FileChannel channel = FileChannel.open(bookPath, StandardOpenOption.READ)) {
+			entryCount = channel.size() / ENTRY_BYTES;
+			segments = new MappedByteBuffer[(int)((entryCount + ENTRIES_PER_SEGMENT - 1) / ENTRIES_PER_SEGMENT)];
+			for (int segment = 0; segment < segments.length; segment++) {
+				long firstEntry = (long)segment * ENTRIES_PER_SEGMENT;
+				long entries = Math.min(ENTRIES_PER_SEGMENT, entryCount - firstEntry);
+				// The mapping stays valid after the channel is closed.
+				segments[segment] = channel.map(FileChannel.MapMode.READ_ONLY, firstEntry * ENTRY_BYTES, entries * ENTRY_BYTES);
+			}
+		}
+	}
+
+	// Opens the book named by the system properties book (the book file) and book.keys (the key table file),
+	// or returns null if they are not set or the book cannot be opened.
+	public static PolyglotBook fromSystemProperties() {
+		String bookPath = System.getProperty("book");
+		String randomsPath = System.getProperty("book.keys");
+		if (bookPath == null || randomsPath == null)
+			return null;
+		try {
+			return new PolyglotBook(Paths.get(bookPath), Paths.get(randomsPath));
+		} catch (IOException | IllegalArgumentException exception) {
+			System.err.println("Could not open the opening book: " + exception.getMessage());
+			return null;
+		}
+	}
+
+	// Reads the key table: the first RANDOM_COUNT hexadecimal numbers (written with 0x) in the file.
+	private static long[] readRandoms(Path randomsPath) throws IOException {
+		long[] randoms = new long[RANDOM_COUNT];
+		Matcher matcher = HEXADECIMAL_NUMBER.matcher(new String(Files.readAllBytes(randomsPath)));
+		int count = 0;
+		while (count < RANDOM_COUNT && matcher.find())
+			randoms[count++] = Long.parseUnsignedLong(matcher.group(1), 16);
+		if (count < RANDOM_COUNT)
+			throw new IllegalArgumentException("Expected " + RANDOM_COUNT + " random numbers in " + randomsPath + ", found " + count);
+		return randoms;
+	}
+
+	// Gets the number of entries in the book.
+	public long size() {
+		return entryCount;
+	}
+
+	// Computes the Polyglot key of the position.
+	public long key(Position position) {
+		long key = 0;
+		for (int square = 0; square < 64; square++) {
+			char piece = position.getPiece(square);
+			if (!Piece.isEmpty(piece))
+				key ^= randoms[64 * pieceKind(piece) + square];
+		}
+		final boolean WHITE = true, KINGSIDE = true;
+		if (position.canCastle(WHITE, KINGSIDE))
+			key ^= randoms[CASTLING_OFFSET];
+		if (position.canCastle(WHITE, !KINGSIDE))
+			key ^= randoms[CASTLING_OFFSET + 1];
+		if (position.canCastle(!WHITE, KINGSIDE))
+			key ^= randoms[CASTLING_OFFSET + 2];
+		if (position.canCastle(!WHITE, !KINGSIDE))
+			key ^= randoms[CASTLING_OFFSET + 3];
+		// The en passant file only counts if a pawn of the player to move stands next to the pawn that moved.
+		int enPassantFile = position.getEnPassantFile();
+		if (enPassantFile != Coordinate.INVALID) {
+			int pawnRank = position.whiteToMove ? 4 : 3;
+			char activePawn = position.whiteToMove ? 'P' : 'p';
+			boolean capturePossible = (enPassantFile > 0 && position.getPiece(Bitboard.square(pawnRank, enPassantFile - 1)) == activePawn)
+				|| (enPassantFile < 7 && position.getPiece(Bitboard.square(pawnRank, enPassantFile + 1)) == activePawn);
+			if (capturePossible)
+				key ^= randoms[EN_PASSANT_OFFSET + enPassantFile];
+		}
+		if (position.whiteToMove)
+			key ^= randoms[WHITE_TO_MOVE_OFFSET];
+		return key;
+	}
+
+	// Gets the Polyglot kind of a piece: black pawn, white pawn, black knight, white knight, and so on
+	// through bishops, rooks, queens, and kings.
+	private static int pieceKind(char piece) {
+		int kind;
+		switch (Piece.type(piece)) {
+		case PAWN: kind = 0; break;
+		case KNIGHT: kind = 2; break;
+		case BISHOP: kind = 4; break;
+		case ROOK: kind = 6; break;
+		case QUEEN: kind = 8; break;
+		default: kind = 10; break;
+		}
+		return Piece.isWhite(piece) ? kind + 1 : kind;
+	}
+
+	// Chooses a book move for the position at random, weighted by the entries' weights,
+	// or returns null if the book has no legal move for the position.
+	public Move pickMove(Position position, Random random) {
+		long key = key(position);
+		MoveList legalMoves = new MoveList();
+		position.generateMoves(legalMoves);
+
+		// The entries of a position are next to each other, since the book is sorted by key.
+		long firstEntry = firstEntry(key);
+		long totalWeight = 0;
+		for (long entry = firstEntry; entry < entryCount && keyAt(entry) == key; entry++)
+			if (legalMove(legalMoves, position, entry) != TranspositionTable.NO_MOVE)
+				totalWeight += weightAt(entry);
+		if (totalWeight == 0)
+			return null;
+		long choice = (long)(random.nextDouble() * totalWeight);
+		for (long entry = firstEntry; entry < entryCount && keyAt(entry) == key; entry++) {
+			int move = legalMove(legalMoves, position, entry);
+			if (move == TranspositionTable.NO_MOVE)
+				continue;
+			choice -= weightAt(entry);
+			if (choice < 0)
+				return position.toMove(move);
+		}
+		return null;
+	}
+
+	// Finds the first entry with a key at least the specified key (binary search).
+	// Keys are compared as unsigned numbers, which is how the book is sorted.
+	private long firstEntry(long key) {
+		long low = 0;
+		long high = entryCount;
+		while (low < high) {
+			long middle = (low + high) >>> 1;
+			if (Long.compareUnsigned(keyAt(middle), key) < 0)
+				low = middle + 1;
+			else high = middle;
+		}
+		return low;
+	}
+
+	// Finds the legal move of the position matching the move of an entry,
+	// or returns NO_MOVE if it has none (e.g. if the entry belongs to another position with the same key).
+	// Polyglot moves are packed as the target file and rank, the source file and rank, and the promotion piece,
+	// three bits each. Castling is written as the king capturing its own rook.
+	private int legalMove(MoveList legalMoves, Position position, long entry) {
+		int bookMove = segment(entry).getShort(offset(entry) + 8) & 0xFFFF;
+		int target = Bitboard.square((bookMove >> 3) & 7, bookMove & 7);
+		int source = Bitboard.square((bookMove >> 9) & 7, (bookMove >> 6) & 7);
+		int promotion = (bookMove >> 12) & 7;
+		Piece.Type promotionType = (promotion < PROMOTION_TYPES.length) ? PROMOTION_TYPES[promotion] : Piece.Type.EMPTY;
+		char sourcePiece = position.getPiece(source);
+		if (Piece.type(sourcePiece) == Piece.Type.KING && Piece.type(position.getPiece(target)) == Piece.Type.ROOK
+				&& Piece.isActive(position.getPiece(target), position.whiteToMove)) {
+			int kingFile = (Bitboard.file(target) > Bitboard.file(source)) ? 6 : 2;
+			target = Bitboard.square(Bitboard.rank(source), kingFile);
+		}
+		for (int index = 0; index < legalMoves.size(); index++) {
+			int move = legalMoves.get(index);
+			if (Move.sourceSquare(move) == source && Move.targetSquare(move) == target
+					&& (Move.type(move) != Move.Type.PROMOTION || Move.promotionType(move) == promotionType))
+				return move;
+		}
+		return TranspositionTable.NO_MOVE;
+	}
+
+	// Gets the key of an entry.
+	private long keyAt(long entry) {
+		return segment(entry).getLong(offset(entry));
+	}
+	// Gets the weight of an entry.
+	private int weightAt(long entry) {
+		return segment(entry).getShort(offset(entry) + 10) & 0xFFFF;
+	}
+	// Gets the mapped segment holding an entry. Absolute reads leave the buffer's position untouched,
+	// so lookups from several threads can share a segment.
+	private ByteBuffer segment(long entry) {
+		return segments[(int)(entry / ENTRIES_PER_SEGMENT)];
+	}
+	// Gets the byte offset of an entry within its segment.
+	private static int offset(long entry) {
+		return (int)(entry % ENTRIES_PER_SEGMENT) * ENTRY_BYTES;
+	}
+}
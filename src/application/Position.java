@@ -5,10 +5,7 @@ import java.util.*;
 // A position on the chess board.
 // Nate Hunter - 03/13/2022
 public class Position {	
-	// The current position active on the chess board.
-	public static Position current = initialPosition();
-
-	// The possible moves for the active player. Checks are ignored for efficiency (see computeAllMoves).
+	// The legal moves for the active player (see computeAllMoves).
 	public List<Move> moves;
 	// The material value of the position.
 	// Positive means white is up on material; negative means black is up on material.
@@ -20,23 +17,33 @@ public class Position {
 	// Whether it is white's turn or black's turn.
 	public boolean whiteToMove;
 	
-	// An 8x8 grid of the pieces on the board.
-	private char[][] pieces = new char[8][8];
-	
-	// The white pieces attacking each square of the chess board. For example, if
-	// attackers[3][1] = {'P', 'R'}, then white is attacking b4 with a pawn and a rook.
-	// Arrays of typed lists cannot be created in Java, so this workaround is used.
-	@SuppressWarnings("unchecked")
-	private List<Character>[][] whiteAttackers = (List<Character>[][]) new List[8][8];
-	// The black pieces attacking each square of the chess board.
-	@SuppressWarnings("unchecked")
-	private List<Character>[][] blackAttackers = (List<Character>[][]) new List[8][8];
+	// Bitboards of the pieces on the board, one per piece type and color (indexed by Piece.index).
+	// For example, pieceBitboards[Piece.index('N')] holds the squares of the white knights.
+	// Bitboards replace an 8x8 grid of characters so that moves and attacks for whole sets of squares
+	// can be computed with a few bitwise operations (see Bitboard).
+	private long[] pieceBitboards = new long[Piece.COUNT];
+	// The piece on each square (indexed by square), kept alongside the bitboards so that
+	// the piece on a square is found with a single lookup.
+	private char[] squarePieces = emptySquares();
+	
+	// Attack maps, kept up to date incrementally as pieces are put on and removed from squares,
+	// so that whether a square is attacked (e.g. for check) is a lookup rather than a computation.
+	// A piece only changes the attacks of itself and of the sliders whose rays pass through its square,
+	// so each change updates just those pieces (see updateAttacks).
+	// The squares attacked by the piece on each square (empty for empty squares).
+	private long[] attacksFrom = new long[64];
+	// The squares of the pieces (of either color) attacking each square.
+	private long[] attackersOf = new long[64];
+	// The squares occupied by white pieces.
+	private long whiteOccupancy;
+	// The squares occupied by black pieces.
+	private long blackOccupancy;
 
 	// Tracking king locations is useful for quickly computing checks and invalid positions.
-	// The location of the white king.
-	private Coordinate whiteKingLocation;
-	// The location of the black king.
-	private Coordinate blackKingLocation;
+	// The square index of the white king.
+	private int whiteKingLocation;
+	// The square index of the black king.
+	private int blackKingLocation;
 
 	// Whether white can castle kingside.
 	private boolean whiteCanCastleKingside;
@@ -51,6 +58,73 @@ public class Position {
 	private boolean justCastled;
 	// The file in which an en passant move would be valid (after a pawn moves two squares).
 	private int enPassantFile;
+	// The number of moves (plies) since the last capture or pawn move.
+	// Positions before an irreversible move cannot repeat, so repetition checks stop there.
+	private int halfmoveClock;
+	
+	// The Zobrist key identifying the position (see Zobrist).
+	// It is updated incrementally whenever pieces, castling rights, en passant, or the side to move change.
+	private long key;
+	// The keys of every position in the game so far (including the current position), in order.
+	// This includes moves played with makeMove, so a search sees repetitions of earlier game positions.
+	private long[] keyHistory;
+	// The number of keys in the key history.
+	private int historyCount;
+	// The number of history keys in each bucket of key bits, as a quick filter for repetitions.
+	// A position can only repeat if its bucket holds another key, which avoids scanning the history
+	// for nearly every position and keeps repetition checks O(1) per ply in practice.
+	private byte[] repetitionFilter;
+	// The bits of a key used to pick its bucket in the repetition filter.
+	private static final int REPETITION_FILTER_MASK = 255;
+	// The initial number of entries in the key history.
+	private static final int INITIAL_HISTORY_CAPACITY = 256;
+	
+	// The undo stack for moves played in place with makeMove, with one entry per move.
+	// Each entry stores the state that cannot be recovered from the move itself, so unmakeMove can
+	// restore the previous position. Parallel primitive arrays are used so that making and unmaking
+	// moves does not allocate; they are created on first use and grow as needed.
+	private int undoCount;
+	// The piece captured by each move (empty if none).
+	private char[] undoCapturedPieces;
+	// The castling rights before each move, packed as bits (see castlingRights).
+	private int[] undoCastlingRights;
+	// The en passant file before each move.
+	private int[] undoEnPassantFiles;
+	// Whether the move before each move was castling.
+	private boolean[] undoJustCastled;
+	// The king locations before each move.
+	private int[] undoWhiteKingLocations;
+	private int[] undoBlackKingLocations;
+	// The material value before each move.
+	private int[] undoMaterialValues;
+	// The halfmove clock before each move.
+	private int[] undoHalfmoveClocks;
+	// The Zobrist key before each move.
+	private long[] undoKeys;
+	// The initial number of entries in the undo stack (enough for a typical search).
+	private static final int INITIAL_UNDO_CAPACITY = 64;
+	
+	// The gains of each capture in the static exchange evaluation, reused so the evaluation does not allocate.
+	// The array holds enough captures for every piece on the board.
+	private final int[] exchangeGains = new int[32];
+	// The exchange value of each piece (see exchangeValue), indexed by Piece.index.
+	private static final int[] PIECE_EXCHANGE_VALUES = new int[Piece.COUNT];
+	static {
+		for (int index = 0; index < Piece.COUNT; index++)
+			PIECE_EXCHANGE_VALUES[index] = exchangeValue(Piece.fromIndex(index));
+	}
+	
+	// The moves of a single piece, reused when checking whether a move is legal (see isLegal).
+	private final MoveList pieceMoves = new MoveList();
+	
+	// The piece types a pawn can promote to, from most to least valuable.
+	private static final Piece.Type[] PROMOTION_TYPES = {Piece.Type.QUEEN, Piece.Type.ROOK, Piece.Type.BISHOP, Piece.Type.KNIGHT};
+	
+	// Bits representing each castling right when packed into a single integer.
+	private static final int WHITE_KINGSIDE = 1;
+	private static final int WHITE_QUEENSIDE = 2;
+	private static final int BLACK_KINGSIDE = 4;
+	private static final int BLACK_QUEENSIDE = 8;
 	
 	// Returns the initial position of a standard chess game.
 	public static Position initialPosition() {
@@ -65,30 +139,90 @@ public class Position {
 			{' ', ' ', ' ', ' ', ' ', ' ', ' ', ' '},
 			{'p', 'p', 'p', 'p', 'p', 'p', 'p', 'p'},
 			{'r', 'n', 'b', 'q', 'k', 'b', 'n', 'r'}};
-		startPosition.pieces = INITIAL_SETUP;
+		for (int rank = 0; rank < 8; rank++)
+			for (int file = 0; file < 8; file++)
+				startPosition.setPiece(new Coordinate(rank, file), INITIAL_SETUP[rank][file]);
 		// The white and black pieces are even, thus canceling out to 0.
 		startPosition.materialValue = 0;
 		startPosition.moveNumber = 1;
 		startPosition.whiteToMove = true;
-		startPosition.whiteKingLocation = new Coordinate(0, 4);
-		startPosition.blackKingLocation = new Coordinate(7, 4);
+		startPosition.whiteKingLocation = Bitboard.square(0, 4);
+		startPosition.blackKingLocation = Bitboard.square(7, 4);
 		startPosition.whiteCanCastleKingside = true;
 		startPosition.whiteCanCastleQueenside = true;
 		startPosition.blackCanCastleKingside = true;
 		startPosition.blackCanCastleQueenside = true;
 		startPosition.justCastled = false;
 		startPosition.enPassantFile = Coordinate.INVALID;
+		startPosition.halfmoveClock = 0;
+		startPosition.startKeyHistory();
 		startPosition.clearAllMoves();
 		return startPosition;
 	}
 	
+	// Returns the position described by a FEN (Forsyth-Edwards Notation) string, such as
+	// "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1" after 1. e4.
+	// The halfmove clock and move number fields are optional.
+	public static Position fromFen(String fen) {
+		String[] fields = fen.trim().split("\\s+");
+		if (fields.length < 4)
+			throw new IllegalArgumentException("Incomplete FEN: " + fen);
+		Position position = new Position();
+		
+		// Place the pieces, from the eighth rank down to the first.
+		String[] ranks = fields[0].split("/");
+		if (ranks.length != 8)
+			throw new IllegalArgumentException("FEN must describe 8 ranks: " + fen);
+		for (int row = 0; row < 8; row++) {
+			int rank = 7 - row;
+			int file = 0;
+			for (char symbol : ranks[row].toCharArray()) {
+				if (Character.isDigit(symbol))
+					file += symbol - '0';
+				else {
+					if (Piece.type(symbol) == Piece.Type.EMPTY || file > 7)
+						throw new IllegalArgumentException("Invalid FEN rank '" + ranks[row] + "': " + fen);
+					position.setPiece(new Coordinate(rank, file), symbol);
+					position.materialValue += Piece.materialValue(symbol);
+					file++;
+				}
+			}
+			if (file != 8)
+				throw new IllegalArgumentException("Invalid FEN rank '" + ranks[row] + "': " + fen);
+		}
+		long whiteKings = position.pieces(Piece.Type.KING, true);
+		long blackKings = position.pieces(Piece.Type.KING, false);
+		if (Long.bitCount(whiteKings) != 1 || Long.bitCount(blackKings) != 1)
+			throw new IllegalArgumentException("FEN must have one king per player: " + fen);
+		position.whiteKingLocation = Bitboard.first(whiteKings);
+		position.blackKingLocation = Bitboard.first(blackKings);
+		
+		position.whiteToMove = fields[1].equals("w");
+		position.whiteCanCastleKingside = fields[2].contains("K");
+		position.whiteCanCastleQueenside = fields[2].contains("Q");
+		position.blackCanCastleKingside = fields[2].contains("k");
+		position.blackCanCastleQueenside = fields[2].contains("q");
+		// Only the file of the en passant target square is tracked.
+		position.enPassantFile = fields[3].equals("-") ? Coordinate.INVALID : fields[3].charAt(0) - 'a';
+		position.halfmoveClock = (fields.length > 4) ? Integer.parseInt(fields[4]) : 0;
+		position.moveNumber = (fields.length > 5) ? Integer.parseInt(fields[5]) : 1;
+		position.justCastled = false;
+		position.startKeyHistory();
+		position.clearAllMoves();
+		return position;
+	}
+	
 	// Creates a deep copy of the position.
-	// Moves and attackers are initialized empty since they should be recalculated for each position.
+	// Moves are initialized empty since they should be recalculated for each position.
+	// The undo stack is not copied, so moves made before copying cannot be unmade on the copy.
 	public Position copy() {
 		Position position = new Position();
-		for (int rank = 0; rank < 8; rank++)
-			for (int file = 0; file < 8; file++)
-				position.pieces[rank][file] = pieces[rank][file];
+		position.pieceBitboards = pieceBitboards.clone();
+		position.squarePieces = squarePieces.clone();
+		position.attacksFrom = attacksFrom.clone();
+		position.attackersOf = attackersOf.clone();
+		position.whiteOccupancy = whiteOccupancy;
+		position.blackOccupancy = blackOccupancy;
 		position.materialValue = materialValue;
 		position.moveNumber = moveNumber;
 		position.whiteToMove = whiteToMove;
@@ -100,118 +234,550 @@ public class Position {
 		position.blackCanCastleQueenside = blackCanCastleQueenside;
 		position.justCastled = justCastled;
 		position.enPassantFile = enPassantFile;
+		position.halfmoveClock = halfmoveClock;
+		position.key = key;
+		position.keyHistory = keyHistory.clone();
+		position.historyCount = historyCount;
+		position.repetitionFilter = repetitionFilter.clone();
 		position.clearAllMoves();
 		return position;
 	}
 	
-	// Initializes/refreshes the moves and attackers to empty lists.
+	// Computes the key from scratch and starts the key history with the position.
+	// Used when setting up a position; moves update the key incrementally from then on.
+	private void startKeyHistory() {
+		key = Bitboard.EMPTY;
+		for (int index = 0; index < Piece.COUNT; index++)
+			for (long squares = pieceBitboards[index]; squares != Bitboard.EMPTY; squares = Bitboard.removeFirst(squares))
+				key ^= Zobrist.PIECE_SQUARE[index][Bitboard.first(squares)];
+		key ^= Zobrist.CASTLING_RIGHTS[castlingRights()];
+		if (enPassantFile != Coordinate.INVALID)
+			key ^= Zobrist.EN_PASSANT_FILE[enPassantFile];
+		if (!whiteToMove)
+			key ^= Zobrist.BLACK_TO_MOVE;
+		keyHistory = new long[INITIAL_HISTORY_CAPACITY];
+		repetitionFilter = new byte[REPETITION_FILTER_MASK + 1];
+		historyCount = 0;
+		pushKeyHistory();
+	}
+	
+	// Gets the Zobrist key identifying the position.
+	// Positions with equal keys are (with overwhelming probability) the same position.
+	public long getKey() {
+		return key;
+	}
+	
+	// Adds the current key to the key history.
+	private void pushKeyHistory() {
+		if (historyCount == keyHistory.length)
+			keyHistory = Arrays.copyOf(keyHistory, historyCount * 2);
+		keyHistory[historyCount++] = key;
+		repetitionFilter[(int)key & REPETITION_FILTER_MASK]++;
+	}
+	// Removes the current key from the key history.
+	private void popKeyHistory() {
+		repetitionFilter[(int)key & REPETITION_FILTER_MASK]--;
+		historyCount--;
+	}
+	
+	// Counts the earlier occurrences of the current position in the game.
+	private int repetitions() {
+		// The filter bucket includes the current position, so a repetition needs at least one more key.
+		if (repetitionFilter[(int)key & REPETITION_FILTER_MASK] < 2)
+			return 0;
+		// Only positions with the same side to move since the last irreversible move can match.
+		int repetitions = 0;
+		int oldestIndex = Math.max(0, historyCount - 1 - halfmoveClock);
+		for (int index = historyCount - 3; index >= oldestIndex; index -= 2)
+			if (keyHistory[index] == key)
+				repetitions++;
+		return repetitions;
+	}
+	// Determines whether the position has occurred before in the game.
+	// Searches treat this as a draw, since repeating a position cannot gain anything.
+	public boolean isRepetition() {
+		return repetitions() >= 1;
+	}
+	// Determines whether the position has occurred three times, which draws the game.
+	public boolean isThreefoldRepetition() {
+		return repetitions() >= 2;
+	}
+	// Determines whether fifty moves by each player have passed without a capture or pawn move,
+	// which draws the game.
+	public boolean isFiftyMoveDraw() {
+		return halfmoveClock >= 100;
+	}
+	
+	// Gets the squares occupied by either player.
+	public long getOccupancy() {
+		return whiteOccupancy | blackOccupancy;
+	}
+	// Determines whether the specified player still has the right to castle on the specified side.
+	public boolean canCastle(boolean white, boolean kingside) {
+		if (white)
+			return kingside ? whiteCanCastleKingside : whiteCanCastleQueenside;
+		return kingside ? blackCanCastleKingside : blackCanCastleQueenside;
+	}
+	// Gets the file in which an en passant capture would be valid, or Coordinate.INVALID if none.
+	public int getEnPassantFile() {
+		return enPassantFile;
+	}
+	
+	// Initializes/refreshes the moves to an empty list.
+	// The attack maps are separate from the moves and stay valid, since every move played (or made and unmade)
+	// updates them as it puts pieces on and removes them from squares (see putPiece and removePiece).
 	private void clearAllMoves() {
 		moves = new ArrayList<Move>();
-		for (int rank = 0; rank < 8; rank++)
-			for (int file = 0; file < 8; file++) {
-				whiteAttackers[rank][file] = new ArrayList<Character>();
-				blackAttackers[rank][file] = new ArrayList<Character>();
-			}
 	}
 	
 	// Gets the piece in the specified square.
 	public char getPiece(Coordinate coordinate) {
-		return pieces[coordinate.rank][coordinate.file];
+		return pieceAt(Bitboard.square(coordinate.rank, coordinate.file));
+	}
+	// Gets the piece on the specified square index (see Bitboard).
+	public char getPiece(int square) {
+		return pieceAt(square);
+	}
+	// Gets the piece on the specified square index.
+	private char pieceAt(int square) {
+		return squarePieces[square];
+	}
+	// Gets an array of 64 empty squares.
+	private static char[] emptySquares() {
+		char[] squares = new char[64];
+		Arrays.fill(squares, Piece.EMPTY);
+		return squares;
 	}
 	
 	// Sets the specified square to the specified piece.
 	public void setPiece(Coordinate coordinate, char piece) {
-		pieces[coordinate.rank][coordinate.file] = piece;
+		int square = Bitboard.square(coordinate.rank, coordinate.file);
+		removePiece(square, pieceAt(square));
+		putPiece(square, piece);
+	}
+	// Adds a piece to an empty square.
+	private void putPiece(int square, char piece) {
+		if (Piece.isEmpty(piece))
+			return;
+		long squareBit = Bitboard.bit(square);
+		pieceBitboards[Piece.index(piece)] |= squareBit;
+		squarePieces[square] = piece;
+		key ^= Zobrist.PIECE_SQUARE[Piece.index(piece)][square];
+		if (Piece.isWhite(piece))
+			whiteOccupancy |= squareBit;
+		else blackOccupancy |= squareBit;
+		// The piece blocks the sliders whose rays reached its square, and attacks squares of its own.
+		updateSliderAttacks(square);
+		updateAttacks(square, pieceAttacks(square, piece));
+	}
+	// Removes a piece from the square it occupies.
+	private void removePiece(int square, char piece) {
+		if (Piece.isEmpty(piece))
+			return;
+		long squareBit = Bitboard.bit(square);
+		pieceBitboards[Piece.index(piece)] &= ~squareBit;
+		squarePieces[square] = Piece.EMPTY;
+		key ^= Zobrist.PIECE_SQUARE[Piece.index(piece)][square];
+		if (Piece.isWhite(piece))
+			whiteOccupancy &= ~squareBit;
+		else blackOccupancy &= ~squareBit;
+		// The piece no longer attacks anything, and the sliders it blocked now reach past its square.
+		updateAttacks(square, Bitboard.EMPTY);
+		updateSliderAttacks(square);
+	}
+	
+	// Gets the squares attacked by a piece on the specified square, given the current occupancy.
+	private long pieceAttacks(int square, char piece) {
+		long occupancy = whiteOccupancy | blackOccupancy;
+		switch (Piece.type(piece)) {
+		case KING: return Bitboard.kingAttacks(square);
+		case QUEEN: return Bitboard.queenAttacks(square, occupancy);
+		case ROOK: return Bitboard.rookAttacks(square, occupancy);
+		case BISHOP: return Bitboard.bishopAttacks(square, occupancy);
+		case KNIGHT: return Bitboard.knightAttacks(square);
+		case PAWN: return Bitboard.pawnAttacks(square, Piece.isWhite(piece));
+		default: return Bitboard.EMPTY;
+		}
+	}
+	// Recomputes the attacks of the sliders attacking the specified square, after a piece is put on it
+	// or removed from it.
+	private void updateSliderAttacks(int square) {
+		long sliders = attackersOf[square] & ~(pieces(Piece.Type.KING, true) | pieces(Piece.Type.KING, false)
+			| pieces(Piece.Type.KNIGHT, true) | pieces(Piece.Type.KNIGHT, false)
+			| pieces(Piece.Type.PAWN, true) | pieces(Piece.Type.PAWN, false));
+		for (; sliders != Bitboard.EMPTY; sliders = Bitboard.removeFirst(sliders)) {
+			int slider = Bitboard.first(sliders);
+			updateAttacks(slider, pieceAttacks(slider, pieceAt(slider)));
+		}
+	}
+	// Sets the squares attacked from the specified square, updating the attackers of only the squares that changed.
+	private void updateAttacks(int square, long attacks) {
+		long squareBit = Bitboard.bit(square);
+		for (long changed = attacksFrom[square] ^ attacks; changed != Bitboard.EMPTY; changed = Bitboard.removeFirst(changed))
+			attackersOf[Bitboard.first(changed)] ^= squareBit;
+		attacksFrom[square] = attacks;
+	}
+	
+	// Gets the squares of the pieces with the specified type and color.
+	private long pieces(Piece.Type pieceType, boolean white) {
+		return pieceBitboards[Piece.index(pieceType, white)];
 	}
 	
 	// Gets the pieces attacking the specified square for the specified player.
+	// This is a view computed from the bitboards; see attackersTo for the underlying squares.
 	public List<Character> getAttackers(Coordinate coordinate, boolean activePlayer) {
 		// Retrieve the white pieces for the active player on white's move
 		// and for the opposing player on black's move.
 		boolean getWhiteAttackers = (activePlayer == whiteToMove);
-		if (getWhiteAttackers)
-			return whiteAttackers[coordinate.rank][coordinate.file];
-		return blackAttackers[coordinate.rank][coordinate.file];
+		long attackers = attackersTo(Bitboard.square(coordinate.rank, coordinate.file), getWhiteAttackers);
+		List<Character> attackingPieces = new ArrayList<Character>();
+		for (; attackers != Bitboard.EMPTY; attackers = Bitboard.removeFirst(attackers))
+			attackingPieces.add(pieceAt(Bitboard.first(attackers)));
+		return attackingPieces;
+	}
+	
+	// Gets the squares of the pieces of the specified color that attack the specified square.
+	// This is read from the attack maps.
+	private long attackersTo(int square, boolean white) {
+		return attackersOf[square] & (white ? whiteOccupancy : blackOccupancy);
+	}
+	// Gets the squares of the pieces of the specified color that attack the specified square, with sliding
+	// attacks blocked only by the specified occupied squares. Pieces on unoccupied squares are still included.
+	// This is computed rather than read from the attack maps, for hypothetical occupancies (e.g. with the king
+	// stepped aside, or with pieces traded off in an exchange).
+	// Attacks are found in reverse: for example, the knights attacking a square are the knights
+	// standing on squares that a knight on the target square would attack.
+	// Each piece type's attacks come from the precomputed tables in Bitboard.
+	private long attackersTo(int square, boolean white, long occupancy) {
+		long attackers = Bitboard.EMPTY;
+		attackers |= Bitboard.knightAttacks(square) & pieces(Piece.Type.KNIGHT, white);
+		attackers |= Bitboard.kingAttacks(square) & pieces(Piece.Type.KING, white);
+		// A white pawn attacks the square from the squares a black pawn on the square would attack (and vice versa).
+		attackers |= Bitboard.pawnAttacks(square, !white) & pieces(Piece.Type.PAWN, white);
+		long queens = pieces(Piece.Type.QUEEN, white);
+		long straightSliders = pieces(Piece.Type.ROOK, white) | queens;
+		if (straightSliders != Bitboard.EMPTY)
+			attackers |= Bitboard.rookAttacks(square, occupancy) & straightSliders;
+		long diagonalSliders = pieces(Piece.Type.BISHOP, white) | queens;
+		if (diagonalSliders != Bitboard.EMPTY)
+			attackers |= Bitboard.bishopAttacks(square, occupancy) & diagonalSliders;
+		return attackers;
+	}
+	
+	// Gets the material the player to move wins by the move once both players have made every capture on
+	// the target square worth making (static exchange evaluation). For example, capturing a defended
+	// knight with a queen is worth 3 - 9 = -6, unless the opponent's recapture would lose even more.
+	// Each player captures with their least valuable piece first and may stop trading at any point.
+	// As pieces leave the square's lines, the sliders behind them (x-rays) join the exchange.
+	// The exchange is evaluated on bitboards and a reused array, so it does not allocate.
+	public int staticExchangeEvaluation(Move move) {
+		return staticExchangeEvaluation(move.pack());
+	}
+	// Evaluates the exchange started by the encoded move (see staticExchangeEvaluation(Move)).
+	public int staticExchangeEvaluation(int move) {
+		int source = Move.sourceSquare(move);
+		int target = Move.targetSquare(move);
+		Move.Type type = Move.type(move);
+		// The first capture gains the captured piece (and any promotion), leaving the capturing piece on
+		// the square. An en passant capture takes a pawn from behind the empty target square.
+		long occupancy = (whiteOccupancy | blackOccupancy) & ~Bitboard.bit(source);
+		int capturedValue = exchangeValue(pieceAt(target));
+		int pieceValue = exchangeValue(pieceAt(source));
+		if (type == Move.Type.EN_PASSANT) {
+			capturedValue = exchangeValue('P');
+			occupancy &= ~Bitboard.bit(Bitboard.square(Bitboard.rank(source), Bitboard.file(target)));
+		} else if (type == Move.Type.PROMOTION) {
+			pieceValue = PIECE_EXCHANGE_VALUES[Piece.index(Move.promotionType(move), whiteToMove)];
+			capturedValue += pieceValue - exchangeValue('P');
+		}
+		exchangeGains[0] = capturedValue;
+		
+		// Alternate recaptures by each player's least valuable attacker, recording the gain of each
+		// capture if the opponent made no further captures.
+		int captureCount = 1;
+		boolean white = !whiteToMove;
+		long attackers = (attackersTo(target, true, occupancy) | attackersTo(target, false, occupancy)) & occupancy;
+		while (captureCount < exchangeGains.length) {
+			long playerAttackers = attackers & (white ? whiteOccupancy : blackOccupancy);
+			if (playerAttackers == Bitboard.EMPTY)
+				break;
+			// Find the least valuable attacker (the pieces are indexed from king to pawn).
+			int attackerIndex = Piece.index(Piece.Type.PAWN, white);
+			while ((pieceBitboards[attackerIndex] & playerAttackers) == Bitboard.EMPTY)
+				attackerIndex--;
+			int attackerSquare = Bitboard.first(pieceBitboards[attackerIndex] & playerAttackers);
+			occupancy &= ~Bitboard.bit(attackerSquare);
+			attackers = (attackersTo(target, true, occupancy) | attackersTo(target, false, occupancy)) & occupancy;
+			// A king cannot capture onto a square the opponent still attacks.
+			boolean king = (attackerIndex == Piece.index(Piece.Type.KING, white));
+			if (king && (attackers & (white ? blackOccupancy : whiteOccupancy)) != Bitboard.EMPTY)
+				break;
+			exchangeGains[captureCount] = pieceValue - exchangeGains[captureCount - 1];
+			pieceValue = PIECE_EXCHANGE_VALUES[attackerIndex];
+			captureCount++;
+			white = !white;
+		}
+		
+		// Work backwards through the captures: each player only makes a capture if it gains more than stopping.
+		for (int index = captureCount - 1; index > 0; index--)
+			exchangeGains[index - 1] = -Math.max(-exchangeGains[index - 1], exchangeGains[index]);
+		return exchangeGains[0];
+	}
+	
+	// Gets the most material the player to move can win by a capture on any single square, counting the
+	// trades that follow (see staticExchangeEvaluation). Returns 0 if no capture wins material.
+	public int bestCaptureValue() {
+		int bestValue = 0;
+		long opposingPieces = opposingOccupancy();
+		for (; opposingPieces != Bitboard.EMPTY; opposingPieces = Bitboard.removeFirst(opposingPieces)) {
+			int target = Bitboard.first(opposingPieces);
+			// Trading starts with the least valuable attacker (the pieces are indexed from king to pawn).
+			long attackers = attackersTo(target, whiteToMove);
+			if (attackers == Bitboard.EMPTY)
+				continue;
+			int attackerIndex = Piece.index(Piece.Type.PAWN, whiteToMove);
+			while ((pieceBitboards[attackerIndex] & attackers) == Bitboard.EMPTY)
+				attackerIndex--;
+			int source = Bitboard.first(pieceBitboards[attackerIndex] & attackers);
+			boolean pawn = (attackerIndex == Piece.index(Piece.Type.PAWN, whiteToMove));
+			boolean promoting = pawn && (Bitboard.rank(target) == 0 || Bitboard.rank(target) == 7);
+			int move = promoting ? Move.encode(source, target, Move.Type.PROMOTION, Piece.Type.QUEEN)
+				: Move.encode(source, target, Move.Type.NORMAL, Piece.Type.EMPTY);
+			bestValue = Math.max(bestValue, staticExchangeEvaluation(move));
+		}
+		return bestValue;
+	}
+	
+	// Gets the value of a piece in exchanges (its material value regardless of color).
+	private static int exchangeValue(char piece) {
+		return Math.abs(Piece.materialValue(piece));
 	}
 	
 	// Plays the move specified and updates the position.
 	public void playMove(Move move) {
+		applyMove(move.pack());
+		// The old moves are no longer valid.
+		clearAllMoves();
+	}
+	
+	// Plays the move specified in place, saving the state needed to unmake it.
+	// Unlike playMove, the list of moves is left untouched (call computeAllMoves as needed), so a search
+	// can walk the game tree on a single position without allocating a new position for every move.
+	public void makeMove(Move move) {
+		makeMove(move.pack());
+	}
+	// Plays the encoded move (see Move.encode) in place, as with makeMove(Move).
+	public void makeMove(int move) {
+		ensureUndoCapacity();
+		undoCastlingRights[undoCount] = castlingRights();
+		undoEnPassantFiles[undoCount] = enPassantFile;
+		undoJustCastled[undoCount] = justCastled;
+		undoWhiteKingLocations[undoCount] = whiteKingLocation;
+		undoBlackKingLocations[undoCount] = blackKingLocation;
+		undoMaterialValues[undoCount] = materialValue;
+		undoHalfmoveClocks[undoCount] = halfmoveClock;
+		undoKeys[undoCount] = key;
+		undoCapturedPieces[undoCount] = applyMove(move);
+		undoCount++;
+	}
+	
+	// Unmakes the specified move, which must be the move most recently played with makeMove.
+	public void unmakeMove(Move move) {
+		unmakeMove(move.pack());
+	}
+	// Unmakes the encoded move, which must be the move most recently played with makeMove.
+	public void unmakeMove(int move) {
+		popKeyHistory();
+		undoCount--;
+		whiteToMove = !whiteToMove;
+		// The move number increments when black's turn finishes.
+		if (!whiteToMove)
+			moveNumber--;
+		setCastlingRights(undoCastlingRights[undoCount]);
+		enPassantFile = undoEnPassantFiles[undoCount];
+		justCastled = undoJustCastled[undoCount];
+		whiteKingLocation = undoWhiteKingLocations[undoCount];
+		blackKingLocation = undoBlackKingLocations[undoCount];
+		materialValue = undoMaterialValues[undoCount];
+		halfmoveClock = undoHalfmoveClocks[undoCount];
+		
+		// Move the piece back to the source square (demoting it if it was promoted).
+		int source = Move.sourceSquare(move);
+		int target = Move.targetSquare(move);
+		Move.Type type = Move.type(move);
+		char piece = pieceAt(target);
+		removePiece(target, piece);
+		if (type == Move.Type.PROMOTION)
+			piece = whiteToMove ? 'P' : 'p';
+		putPiece(source, piece);
+		
+		// Restore the captured piece and undo special cases.
+		char capturedPiece = undoCapturedPieces[undoCount];
+		switch (type) {
+		case CASTLE:
+			boolean castlingKingside = (target > source);
+			int rookSource = castlingKingside ? source + 3 : source - 4;
+			int rookTarget = castlingKingside ? source + 1 : source - 1;
+			char rook = pieceAt(rookTarget);
+			removePiece(rookTarget, rook);
+			putPiece(rookSource, rook);
+			break;
+		case EN_PASSANT:
+			putPiece(Bitboard.square(Bitboard.rank(source), enPassantFile), capturedPiece);
+			break;
+		default:
+			putPiece(target, capturedPiece);
+			break;
+		}
+		// Moving pieces back toggled the key along the way; restore it exactly.
+		key = undoKeys[undoCount];
+	}
+	
+	// Ensures the undo stack has room for another move.
+	private void ensureUndoCapacity() {
+		if (undoCapturedPieces == null) {
+			undoCapturedPieces = new char[INITIAL_UNDO_CAPACITY];
+			undoCastlingRights = new int[INITIAL_UNDO_CAPACITY];
+			undoEnPassantFiles = new int[INITIAL_UNDO_CAPACITY];
+			undoJustCastled = new boolean[INITIAL_UNDO_CAPACITY];
+			undoWhiteKingLocations = new int[INITIAL_UNDO_CAPACITY];
+			undoBlackKingLocations = new int[INITIAL_UNDO_CAPACITY];
+			undoMaterialValues = new int[INITIAL_UNDO_CAPACITY];
+			undoHalfmoveClocks = new int[INITIAL_UNDO_CAPACITY];
+			undoKeys = new long[INITIAL_UNDO_CAPACITY];
+		}
+		else if (undoCount == undoCapturedPieces.length) {
+			int capacity = undoCount * 2;
+			undoCapturedPieces = Arrays.copyOf(undoCapturedPieces, capacity);
+			undoCastlingRights = Arrays.copyOf(undoCastlingRights, capacity);
+			undoEnPassantFiles = Arrays.copyOf(undoEnPassantFiles, capacity);
+			undoJustCastled = Arrays.copyOf(undoJustCastled, capacity);
+			undoWhiteKingLocations = Arrays.copyOf(undoWhiteKingLocations, capacity);
+			undoBlackKingLocations = Arrays.copyOf(undoBlackKingLocations, capacity);
+			undoMaterialValues = Arrays.copyOf(undoMaterialValues, capacity);
+			undoHalfmoveClocks = Arrays.copyOf(undoHalfmoveClocks, capacity);
+			undoKeys = Arrays.copyOf(undoKeys, capacity);
+		}
+	}
+	
+	// Disables castling with the rook starting on the specified square (if it is a corner square).
+	private void disableCastlingWithRook(int square) {
+		if (square == Bitboard.square(0, 0))
+			whiteCanCastleQueenside = false;
+		else if (square == Bitboard.square(0, 7))
+			whiteCanCastleKingside = false;
+		else if (square == Bitboard.square(7, 0))
+			blackCanCastleQueenside = false;
+		else if (square == Bitboard.square(7, 7))
+			blackCanCastleKingside = false;
+	}
+	
+	// Gets the castling rights packed as bits.
+	private int castlingRights() {
+		int castlingRights = 0;
+		if (whiteCanCastleKingside) castlingRights |= WHITE_KINGSIDE;
+		if (whiteCanCastleQueenside) castlingRights |= WHITE_QUEENSIDE;
+		if (blackCanCastleKingside) castlingRights |= BLACK_KINGSIDE;
+		if (blackCanCastleQueenside) castlingRights |= BLACK_QUEENSIDE;
+		return castlingRights;
+	}
+	// Sets the castling rights from packed bits.
+	private void setCastlingRights(int castlingRights) {
+		whiteCanCastleKingside = (castlingRights & WHITE_KINGSIDE) != 0;
+		whiteCanCastleQueenside = (castlingRights & WHITE_QUEENSIDE) != 0;
+		blackCanCastleKingside = (castlingRights & BLACK_KINGSIDE) != 0;
+		blackCanCastleQueenside = (castlingRights & BLACK_QUEENSIDE) != 0;
+	}
+	
+	// Updates the position with the move specified and returns the piece captured (empty if none).
+	private char applyMove(int move) {
+		int source = Move.sourceSquare(move);
+		int target = Move.targetSquare(move);
+		Move.Type type = Move.type(move);
 		// Get the piece to move.
-		char piece = getPiece(move.source);
+		char movingPiece = pieceAt(source);
+		char piece = movingPiece;
+		char enPassantCapture = Piece.EMPTY;
+		// Remove the castling rights and en passant file from the key; they are added back once updated.
+		key ^= Zobrist.CASTLING_RIGHTS[castlingRights()];
+		if (enPassantFile != Coordinate.INVALID)
+			key ^= Zobrist.EN_PASSANT_FILE[enPassantFile];
 		
 		// Handle special cases, including castling, promotion, and en passant.
-		switch (move.type) {
+		switch (type) {
 		case CASTLE:
 			// Move the rook to the other side of the king.
 			// Moving the king itself is handled as the standard case.
-			boolean castlingKingside = (move.target.file > move.source.file);
+			boolean castlingKingside = (target > source);
 			int rookSourceFile = castlingKingside ? 7 : 0;
-			Coordinate rookSource = new Coordinate(move.source.rank, rookSourceFile);
-			char rook = getPiece(rookSource);
+			int rookSource = Bitboard.square(Bitboard.rank(source), rookSourceFile);
+			char rook = pieceAt(rookSource);
 			int rookTargetFile = castlingKingside ? 5 : 3;
-			Coordinate rookTarget = new Coordinate(move.target.rank, rookTargetFile);
-			setPiece(rookTarget, rook);
-			setPiece(rookSource, Piece.EMPTY);
+			int rookTarget = Bitboard.square(Bitboard.rank(target), rookTargetFile);
+			removePiece(rookSource, rook);
+			putPiece(rookTarget, rook);
 			break;
 		case PROMOTION:
-			// All pawns promote to queens for simplicity.
+			// Replace the pawn with the piece it promotes to.
 			char pawn = piece;
-			char queen = Piece.promoteToQueen(pawn);
-			materialValue += Piece.materialValue(queen);
+			char promotedPiece = Piece.fromIndex(Piece.index(Move.promotionType(move), whiteToMove));
+			materialValue += Piece.materialValue(promotedPiece);
 			materialValue -= Piece.materialValue(pawn);
-			piece = queen;
+			piece = promotedPiece;
 			break;
 		case EN_PASSANT:
 			// Capture the opposing pawn en passant.
-			Coordinate opposingPawnLocation = new Coordinate(move.source.rank, enPassantFile);
-			char opposingPawn = getPiece(opposingPawnLocation);
+			int opposingPawnLocation = Bitboard.square(Bitboard.rank(source), enPassantFile);
+			char opposingPawn = pieceAt(opposingPawnLocation);
 			materialValue -= Piece.materialValue(opposingPawn);
-			setPiece(opposingPawnLocation, Piece.EMPTY);
+			removePiece(opposingPawnLocation, opposingPawn);
+			enPassantCapture = opposingPawn;
 			break;
 		default: break;
 		}
 		
 		// Move the piece to the target square and update the material value.
-		char capturedPiece = getPiece(move.target);
+		char capturedPiece = pieceAt(target);
 		materialValue -= Piece.materialValue(capturedPiece);
-		setPiece(move.target, piece);
-		setPiece(move.source, Piece.EMPTY);
+		removePiece(target, capturedPiece);
+		removePiece(source, movingPiece);
+		putPiece(target, piece);
 		
 		// Update the position state.
-		if (move.type == Move.Type.TWO_SQUARE_PAWN)
-			enPassantFile = move.target.file;
+		if (type == Move.Type.TWO_SQUARE_PAWN)
+			enPassantFile = Bitboard.file(target);
 		else enPassantFile = Coordinate.INVALID;
-		justCastled = (move.type == Move.Type.CASTLE);
+		justCastled = (type == Move.Type.CASTLE);
 		// Disable castling as appropriate.
 		if (Piece.type(piece) == Piece.Type.KING) {
 			if (whiteToMove) {
-				whiteKingLocation = move.target;
+				whiteKingLocation = target;
 				whiteCanCastleKingside = false;
 				whiteCanCastleQueenside = false;
 			}
 			else {
-				blackKingLocation = move.target;
+				blackKingLocation = target;
 				blackCanCastleKingside = false;
 				blackCanCastleQueenside = false;
 			}
 		}
-		else if (Piece.type(piece) == Piece.Type.ROOK) {
-			if (move.source.file == 0) {
-				if (whiteToMove)
-					whiteCanCastleQueenside = false;
-				else blackCanCastleQueenside = true;
-			}
-			else if (move.source.file == 7) {
-				if (whiteToMove)
-					whiteCanCastleKingside = false;
-				else blackCanCastleKingside = false;
-			}
-		}
+		else if (Piece.type(piece) == Piece.Type.ROOK)
+			disableCastlingWithRook(source);
+		// Capturing a rook in its corner also disables castling with it.
+		disableCastlingWithRook(target);
+		key ^= Zobrist.CASTLING_RIGHTS[castlingRights()];
+		if (enPassantFile != Coordinate.INVALID)
+			key ^= Zobrist.EN_PASSANT_FILE[enPassantFile];
+		// Captures and pawn moves are irreversible, so earlier positions cannot repeat.
+		if (Piece.type(movingPiece) == Piece.Type.PAWN || !Piece.isEmpty(capturedPiece))
+			halfmoveClock = 0;
+		else halfmoveClock++;
 		whiteToMove = !whiteToMove;
+		key ^= Zobrist.BLACK_TO_MOVE;
 		if (whiteToMove)
 			moveNumber++;
-		// The old moves and attackers are no longer valid.
-		clearAllMoves();
+		pushKeyHistory();
+		return (type == Move.Type.EN_PASSANT) ? enPassantCapture : capturedPiece;
 	}
 	
 	// Creates a new position representing the game after playing the specified move.
@@ -221,223 +787,300 @@ public class Position {
 		return position;
 	}
 	
-	// Computes the following:
-	//		a) moves: A list of all possible moves for the position (ignoring checks).
-	// 		b) attackers: Lists of all pieces that attack each square.
+	// Computes moves: a list of all legal moves for the position.
 	// This method serves as the computational core of the entire program.
 	//
-	// Attackers are computed alongside moves since both require similar calculations.
-	// They are useful to identify check, evaluate moves, and choose moves to explore further.
+	// Moves are computed from the bitboards one active piece at a time: the squares a piece attacks
+	// are masked against the squares occupied by the active player to find its targets.
+	// Attacks are read from the attack maps (attacksFrom and attackersOf), which makeMove and unmakeMove keep
+	// up to date: each piece put on or removed from a square updates its own attacks and those of the sliders
+	// whose rays pass through the square. Finding the checkers or the attacked squares is then a lookup
+	// (see attackersTo), rather than a computation for every piece.
 	//
-	// For maximum efficiency, this method does not account for checks from the opposing player
-	// when computing the possible moves. Instead, it allows calling code to check whether
-	// resulting positions are valid. For example, suppose white wants to play a move to transition
-	// from position 1 to position 2, but the move leaves white's king in check.
-	// When this method is called on position 1, the move is added and the check is not detected.
-	// When this method is called on position 2, it computes that black is attacking white's king 
-	// on black's turn, so position2.valid() will return false. Thus, the calling code should check
-	// that position 2 is invalid and ignore the corresponding illegal move from position 1.
+	// Only legal moves are generated, so a move never leaves the active player's king in check.
+	// Rather than playing each move to see whether the king is left attacked, the generator works out
+	// up front which pieces attack the king (checkers) and which pieces are pinned to it:
+	// - The king may move to any square the opposing player does not attack.
+	// - In double check, only the king may move.
+	// - In single check, other pieces may only capture the checker or block its line to the king.
+	// - A pinned piece may only move along the line between its king and the pinning piece.
+	// En passant (which removes two pieces from a line at once) and castling (which must not pass
+	// through an attacked square) are checked individually.
 	//
-	// The reason for requiring this extra step is that computing whether each move leaves a player
-	// in check requires computing all the moves for the subsequent position, which is slow.
-	// This alternative builds the check computations into the recursive structure of move
-	// calculations, thus giving a bot time to compute an extra layer of depth.
+	// The moves are generated as encoded ints (see generateMoves) and wrapped in Move objects here.
+	// A search should use generateMoves directly, since it does not need Move objects.
 	public void computeAllMoves() {
-		for (int rank = 0; rank < 8; rank++)
-			for (int file = 0; file < 8; file++) {
-				Coordinate source = new Coordinate(rank, file);
-				char piece = getPiece(source);
-				switch (Piece.type(piece)) {
-				case KING:
-					computeShortRangeMoves(Coordinate.ROYALTY_MOVE_DIRECTIONS, source, piece);
-					break;
-				case QUEEN:
-					computeLongRangeMoves(Coordinate.ROYALTY_MOVE_DIRECTIONS, source, piece);
-					break;
-				case ROOK:
-					computeLongRangeMoves(Coordinate.ROOK_MOVE_DIRECTIONS, source, piece);
-					break;
-				case BISHOP:
-					computeLongRangeMoves(Coordinate.BISHOP_MOVE_DIRECTIONS, source, piece);
-					break;
-				case KNIGHT:
-					computeShortRangeMoves(Coordinate.KNIGHT_MOVE_DIRECTIONS, source, piece);
-					break;
-				case PAWN:
-					computePawnMoves(source, piece);
-					break;
-				default: break;
-				}
-			}
-		computeCastlingMoves();
+		MoveList generatedMoves = new MoveList();
+		generateMoves(generatedMoves);
+		clearAllMoves();
+		for (int index = 0; index < generatedMoves.size(); index++)
+			moves.add(toMove(generatedMoves.get(index)));
 	}
 	
-	// Computes short-range moves and attackers. Used for kings and knights.
-	private void computeShortRangeMoves(Coordinate[] moveDirections, Coordinate source, char piece) {
-		boolean sourceActive = Piece.isActive(piece, whiteToMove);
-		for (Coordinate direction : moveDirections) {
-			// Compute the target square from the source square and the move direction.
-			Coordinate target = source.add(direction);
-			
-			// Add the attacker if the square is on the board.
-			if (target.inbounds()) {
-				addAttacker(target, piece);
-				
-				// Add the move for an active piece targeting an opposing piece or empty square.
-				if (sourceActive && !Piece.isActive(getPiece(target), whiteToMove))
-					addMove(source, target, Move.Type.NORMAL);
+	// Wraps an encoded move of this position in a Move, for displaying or logging it.
+	public Move toMove(int move) {
+		return new Move(move, pieceAt(Move.sourceSquare(move)), pieceAt(Move.targetSquare(move)));
+	}
+	
+	// Fills the list with the encoded legal moves for the active player (see computeAllMoves).
+	public void generateMoves(MoveList moves) {
+		final boolean CAPTURES = true, QUIETS = true;
+		generateMoves(moves, ~Bitboard.EMPTY, CAPTURES, QUIETS);
+	}
+	
+	// Fills the list with the encoded legal captures and promotions for the active player.
+	// These are the moves that change the material value, which is all a quiescence search needs
+	// to resolve trades in progress.
+	public void generateCaptures(MoveList moves) {
+		final boolean CAPTURES = true, QUIETS = true;
+		generateMoves(moves, ~Bitboard.EMPTY, CAPTURES, !QUIETS);
+	}
+	
+	// Fills the list with the encoded legal moves for the active player that are neither captures
+	// nor promotions (including castling). Together with generateCaptures, this generates every legal
+	// move exactly once, so a search can put off generating quiet moves until the captures are searched.
+	public void generateQuiets(MoveList moves) {
+		final boolean CAPTURES = true, QUIETS = true;
+		generateMoves(moves, ~Bitboard.EMPTY, !CAPTURES, QUIETS);
+	}
+	
+	// Determines whether an encoded move is legal for the active player, by generating the moves of
+	// the piece on its source square. This checks moves from elsewhere (e.g. the transposition table,
+	// where different positions can share a key) before playing them, without generating every move.
+	public boolean isLegal(int move) {
+		int source = Move.sourceSquare(move);
+		if (!Bitboard.contains(activeOccupancy(), source))
+			return false;
+		final boolean CAPTURES = true, QUIETS = true;
+		generateMoves(pieceMoves, Bitboard.bit(source), CAPTURES, QUIETS);
+		return pieceMoves.indexOf(move) >= 0;
+	}
+	
+	// Fills the list with the legal moves for the active player from the source squares,
+	// including the captures and promotions, the other (quiet) moves, or both.
+	private void generateMoves(MoveList moves, long sources, boolean captures, boolean quiets) {
+		moves.clear();
+		int kingLocation = whiteToMove ? whiteKingLocation : blackKingLocation;
+		long occupancy = whiteOccupancy | blackOccupancy;
+		// Pieces other than pawns can move to any empty square, or capture on the squares
+		// occupied by opposing pieces.
+		long targets = (captures ? opposingOccupancy() : Bitboard.EMPTY) | (quiets ? ~occupancy : Bitboard.EMPTY);
+		
+		// The king can move to any target square the opposing player does not attack. The king is removed
+		// from the occupancy, so that it cannot step back along the line of a slider checking it.
+		boolean kingMoving = Bitboard.contains(sources, kingLocation);
+		long kingTargets = kingMoving ? Bitboard.kingAttacks(kingLocation) & targets : Bitboard.EMPTY;
+		long occupancyWithoutKing = occupancy & ~Bitboard.bit(kingLocation);
+		for (; kingTargets != Bitboard.EMPTY; kingTargets = Bitboard.removeFirst(kingTargets)) {
+			int target = Bitboard.first(kingTargets);
+			if (attackersTo(target, !whiteToMove, occupancyWithoutKing) == Bitboard.EMPTY)
+				addMove(moves, kingLocation, target, Move.Type.NORMAL);
+		}
+		
+		// In double check, only the king can move.
+		long checkers = attackersTo(kingLocation, !whiteToMove);
+		if (Long.bitCount(checkers) > 1)
+			return;
+		// In single check, other pieces must capture the checker or block its line to the king.
+		long evasionTargets = ~Bitboard.EMPTY;
+		if (checkers != Bitboard.EMPTY)
+			evasionTargets = checkers | Bitboard.between(kingLocation, Bitboard.first(checkers));
+		long pinnedPieces = pinnedPieces(kingLocation);
+		
+		long otherPieces = activeOccupancy() & sources & ~Bitboard.bit(kingLocation);
+		for (long remaining = otherPieces; remaining != Bitboard.EMPTY; remaining = Bitboard.removeFirst(remaining)) {
+			int source = Bitboard.first(remaining);
+			long legalTargets = evasionTargets;
+			if (Bitboard.contains(pinnedPieces, source))
+				legalTargets &= Bitboard.line(kingLocation, source);
+			switch (Piece.type(pieceAt(source))) {
+			case QUEEN:
+				addMoves(moves, source, Bitboard.queenAttacks(source, occupancy) & targets & legalTargets, Move.Type.NORMAL);
+				break;
+			case ROOK:
+				addMoves(moves, source, Bitboard.rookAttacks(source, occupancy) & targets & legalTargets, Move.Type.NORMAL);
+				break;
+			case BISHOP:
+				addMoves(moves, source, Bitboard.bishopAttacks(source, occupancy) & targets & legalTargets, Move.Type.NORMAL);
+				break;
+			case KNIGHT:
+				addMoves(moves, source, Bitboard.knightAttacks(source) & targets & legalTargets, Move.Type.NORMAL);
+				break;
+			case PAWN:
+				computePawnMoves(moves, source, captures, quiets, legalTargets);
+				break;
+			default: break;
 			}
 		}
+		if (quiets && kingMoving && checkers == Bitboard.EMPTY)
+			computeCastlingMoves(moves);
 	}
 	
-	// Computes long-range moves and attackers. Used for queens, rooks, and bishops.
-	private void computeLongRangeMoves(Coordinate[] moveDirections, Coordinate source, char piece) {
-		boolean sourceActive = Piece.isActive(piece, whiteToMove);
-		// Iterate through target squares outward in each direction until the direction is blocked.
-		for (Coordinate direction : moveDirections) {
-			boolean directionOpen = true;
-			for (int squareCount = 1; directionOpen; squareCount++) {
-				directionOpen = false;
-				
-				// Compute the target square from the source square and the move direction.
-				Coordinate target = source.add(direction.scale(squareCount));
-				
-				// Add the attacker if the square is on the board.
-				if (target.inbounds()) {
-					addAttacker(target, piece);
-					
-					// Add the move for an active piece targeting an opposing piece or empty square.
-					char targetPiece = getPiece(target);
-					if (sourceActive && !Piece.isActive(targetPiece, whiteToMove))
-						addMove(source, target, Move.Type.NORMAL);
-					
-					// Proceed to the next square in the move direction if the square is empty.
-					if (Piece.isEmpty(targetPiece))
-						directionOpen = true;
-				}
-			}
+	// Gets the squares of the active player's pieces pinned to the king at the specified square.
+	// A piece is pinned if it is the only piece between the king and an opposing slider on its line.
+	private long pinnedPieces(int kingLocation) {
+		boolean opposingWhite = !whiteToMove;
+		long opposingQueens = pieces(Piece.Type.QUEEN, opposingWhite);
+		// Find the opposing sliders that would attack the king if the active player's pieces were removed.
+		long opposingPieces = opposingOccupancy();
+		long pinningPieces = (Bitboard.rookAttacks(kingLocation, opposingPieces) & (pieces(Piece.Type.ROOK, opposingWhite) | opposingQueens))
+			| (Bitboard.bishopAttacks(kingLocation, opposingPieces) & (pieces(Piece.Type.BISHOP, opposingWhite) | opposingQueens));
+		long occupancy = whiteOccupancy | blackOccupancy;
+		long pinnedPieces = Bitboard.EMPTY;
+		for (; pinningPieces != Bitboard.EMPTY; pinningPieces = Bitboard.removeFirst(pinningPieces)) {
+			long blockers = Bitboard.between(kingLocation, Bitboard.first(pinningPieces)) & occupancy;
+			if (Long.bitCount(blockers) == 1)
+				pinnedPieces |= blockers & activeOccupancy();
 		}
+		return pinnedPieces;
 	}
 	
-	// Computes pawn moves and attackers.
-	private void computePawnMoves(Coordinate source, char pawn) {
-		// Add straight non-capturing moves.
-		Coordinate nonCaptureDirection;
-		boolean pawnWhite = Piece.isWhite(pawn);
-		if (pawnWhite)
-			nonCaptureDirection = Coordinate.WHITE_PAWN_NON_CAPTURE_DIRECTION;
-		else nonCaptureDirection = Coordinate.BLACK_PAWN_NON_CAPTURE_DIRECTION;
-		Coordinate target = source.add(nonCaptureDirection);
+	// Computes pawn captures and promotions, other (quiet) pawn moves, or both, to the legal target squares
+	// (see generateMoves).
+	private void computePawnMoves(MoveList moves, int source, boolean captures, boolean quiets, long legalTargets) {
+		long occupancy = whiteOccupancy | blackOccupancy;
 		
 		// Determine whether the pawn is promoting.
+		boolean pawnWhite = whiteToMove;
 		int promotionRank = pawnWhite ? 7 : 0;
-		boolean promoting = (target.rank == promotionRank);
-		Move.Type moveType = promoting ? Move.Type.PROMOTION : Move.Type.NORMAL;
+		int forwardRank = Bitboard.rank(source) + (pawnWhite ? 1 : -1);
+		boolean promoting = (forwardRank == promotionRank);
 		
-		// Add the move for an active pawn targeting an empty square.
-		boolean sourceActive = Piece.isActive(pawn, whiteToMove);
-		if (sourceActive)
-			if (Piece.isEmpty(getPiece(target))) {
-				// Add the single-rank move.
-				addMove(source, target, moveType);
-				
-				// Add the initial double-rank move if applicable.
-				int startingRank = pawnWhite ? 1 : 6;
-				if (source.rank == startingRank) {
-					Coordinate longTarget = source.add(nonCaptureDirection.scale(2));
-					if (Piece.isEmpty(getPiece(longTarget)))
-						addMove(source, longTarget, Move.Type.TWO_SQUARE_PAWN);
-				}
-			}
-		
-		// Add diagonal capturing moves.
-		Coordinate[] captureDirections;
-		if (pawnWhite)
-			captureDirections = Coordinate.WHITE_PAWN_CAPTURE_DIRECTIONS;
-		else captureDirections = Coordinate.BLACK_PAWN_CAPTURE_DIRECTIONS;
-		for (Coordinate direction : captureDirections) {
-			target = source.add(direction);
+		// Add straight non-capturing moves targeting empty squares (one rank is eight square indices).
+		int forward = pawnWhite ? 8 : -8;
+		long target = Bitboard.bit(source + forward) & ~occupancy;
+		if (target != Bitboard.EMPTY && (promoting ? captures : quiets)) {
+			// Add the single-rank move.
+			addPawnMoves(moves, source, target & legalTargets, promoting);
 			
-			// Add the attacker if the square is on the board.
-			if (target.inbounds()) {
-				addAttacker(target, pawn);
-				
-				// Add the capturing move for an active pawn targeting an opposing piece.
-				if (sourceActive) {
-					if (Piece.isOpposing(getPiece(target), whiteToMove))
-						addMove(source, target, moveType);
-					
-					// Add an en passant capture if the target square is correct (and the file is valid).
-					int enPassantRank = pawnWhite ? 5 : 2;
-					Coordinate enPassantTarget = new Coordinate(enPassantRank, enPassantFile);
-					if (target.equals(enPassantTarget))
-						addMove(source, target, Move.Type.EN_PASSANT);
-				}
+			// Add the initial double-rank move if applicable.
+			int startingRank = pawnWhite ? 1 : 6;
+			if (Bitboard.rank(source) == startingRank) {
+				long longTarget = Bitboard.bit(source + 2 * forward) & ~occupancy;
+				addMoves(moves, source, longTarget & legalTargets, Move.Type.TWO_SQUARE_PAWN);
 			}
 		}
+		
+		if (!captures)
+			return;
+		// Add diagonal capturing moves targeting opposing pieces.
+		long attacks = Bitboard.pawnAttacks(source, pawnWhite);
+		addPawnMoves(moves, source, attacks & opposingOccupancy() & legalTargets, promoting);
+		
+		// Add an en passant capture if the target square is correct (and the file is valid).
+		if (enPassantFile != Coordinate.INVALID) {
+			int enPassantRank = pawnWhite ? 5 : 2;
+			int enPassantTarget = Bitboard.square(enPassantRank, enPassantFile);
+			if (Bitboard.contains(attacks, enPassantTarget) && enPassantLegal(source, enPassantTarget))
+				addMove(moves, source, enPassantTarget, Move.Type.EN_PASSANT);
+		}
+	}
+	
+	// Determines whether an en passant capture leaves the king safe.
+	// Both pawns leave the capturing pawn's rank at once, which pins cannot account for, so the
+	// attacks on the king are checked with the occupancy after the capture.
+	private boolean enPassantLegal(int source, int target) {
+		int kingLocation = whiteToMove ? whiteKingLocation : blackKingLocation;
+		long capturedPawn = Bitboard.bit(Bitboard.square(Bitboard.rank(source), Bitboard.file(target)));
+		long occupancy = ((whiteOccupancy | blackOccupancy) & ~Bitboard.bit(source) & ~capturedPawn) | Bitboard.bit(target);
+		return (attackersTo(kingLocation, !whiteToMove, occupancy) & ~capturedPawn) == Bitboard.EMPTY;
 	}
 	
 	// Computes castling moves.
-	private void computeCastlingMoves() {
+	private void computeCastlingMoves(MoveList moves) {
 		final boolean KINGSIDE = true;
 		if (whiteToMove) {
 			if (whiteCanCastleKingside)
-				addCastlingMove(KINGSIDE);
+				addCastlingMove(moves, KINGSIDE);
 			if (whiteCanCastleQueenside)
-				addCastlingMove(!KINGSIDE);
+				addCastlingMove(moves, !KINGSIDE);
 		} else {
 			if (blackCanCastleKingside)
-				addCastlingMove(KINGSIDE);
+				addCastlingMove(moves, KINGSIDE);
 			if (blackCanCastleQueenside)
-				addCastlingMove(!KINGSIDE);
+				addCastlingMove(moves, !KINGSIDE);
 		}
 	}
-	// Adds the specified castling move to the list of possible moves if the path is clear.
-	private void addCastlingMove(boolean castlingKingside) {
+	// Adds the specified castling move to the list of possible moves if the path is clear and safe.
+	// Castling out of check is ruled out before this is called.
+	private void addCastlingMove(MoveList moves, boolean castlingKingside) {
 		// Determine whether the path is clear (i.e. the squares between the king and rook).
-		// For efficiency, checks are ignored here; resulting invalid positions should be checked for.
 		boolean pathClear = true;
 		int backRank = whiteToMove ? 0 : 7;
 		int startFile = castlingKingside ? 5 : 1;
 		int endFile = castlingKingside ? 6 : 3;
+		long occupancy = whiteOccupancy | blackOccupancy;
 		for (int file = startFile; file <= endFile; file++) {
-			Coordinate squareInPath = new Coordinate(backRank, file);
-			if (!Piece.isEmpty(getPiece(squareInPath))) {
+			if (Bitboard.contains(occupancy, Bitboard.square(backRank, file))) {
 				pathClear = false;
 				break;
 			}
 		}
-		if (pathClear) {
-			// Add the castling move.
-			Coordinate activeKingLocation = whiteToMove ? whiteKingLocation : blackKingLocation;
-			int targetFile = castlingKingside ? 6 : 2;
-			Coordinate target = new Coordinate(backRank, targetFile);
-			addMove(activeKingLocation, target, Move.Type.CASTLE);
-		}
+		if (!pathClear)
+			return;
+		// The king must not pass through or land on an attacked square.
+		int activeKingLocation = whiteToMove ? whiteKingLocation : blackKingLocation;
+		int targetFile = castlingKingside ? 6 : 2;
+		int passThroughFile = castlingKingside ? 5 : 3;
+		final boolean OPPOSING_PLAYER = false;
+		if (squareAttacked(Bitboard.square(backRank, passThroughFile), OPPOSING_PLAYER)
+				|| squareAttacked(Bitboard.square(backRank, targetFile), OPPOSING_PLAYER))
+			return;
+		addMove(moves, activeKingLocation, Bitboard.square(backRank, targetFile), Move.Type.CASTLE);
 	}
 	
-	// Adds a move to the list of possible moves.
-	private void addMove(Coordinate source, Coordinate target, Move.Type type) {
-		moves.add(new Move(source, getPiece(source), target, getPiece(target), type));
+	// Gets the squares occupied by the active player.
+	private long activeOccupancy() {
+		return whiteToMove ? whiteOccupancy : blackOccupancy;
+	}
+	// Gets the squares occupied by the opposing player.
+	private long opposingOccupancy() {
+		return whiteToMove ? blackOccupancy : whiteOccupancy;
 	}
 	
-	// Adds an attacker for the specified target square.
-	private void addAttacker(Coordinate target, char attackingPiece) {
-		boolean activeAttacker = Piece.isActive(attackingPiece, whiteToMove);
-		getAttackers(target, activeAttacker).add(attackingPiece);
+	// Adds a move from the source square to each target square to the list of moves.
+	private void addMoves(MoveList moves, int source, long targets, Move.Type type) {
+		for (; targets != Bitboard.EMPTY; targets = Bitboard.removeFirst(targets))
+			addMove(moves, source, Bitboard.first(targets), type);
+	}
+	// Adds a pawn move from the source square to each target square to the list of moves.
+	// A promoting pawn has one move per piece it can promote to, starting with the queen.
+	private void addPawnMoves(MoveList moves, int source, long targets, boolean promoting) {
+		for (; targets != Bitboard.EMPTY; targets = Bitboard.removeFirst(targets)) {
+			int target = Bitboard.first(targets);
+			if (!promoting) {
+				moves.add(Move.encode(source, target, Move.Type.NORMAL, Piece.Type.EMPTY));
+				continue;
+			}
+			for (Piece.Type promotionType : PROMOTION_TYPES)
+				moves.add(Move.encode(source, target, Move.Type.PROMOTION, promotionType));
+		}
+	}
+	// Adds a move to the list of moves.
+	private void addMove(MoveList moves, int source, int target, Move.Type type) {
+		moves.add(Move.encode(source, target, type, Piece.Type.EMPTY));
 	}
 	
 	// Determines whether the specified player is attacking the specified square.
-	// This method assumes that attackers have already been computed.
-	private boolean squareAttacked(Coordinate square, boolean activePlayer) {
-		List<Character> attackers = getAttackers(square, activePlayer);
-		return !attackers.isEmpty();
+	private boolean squareAttacked(int square, boolean activePlayer) {
+		boolean white = (activePlayer == whiteToMove);
+		return attackersTo(square, white) != Bitboard.EMPTY;
+	}
+	
+	// Determines the status of the position (whether the active player is in check, checkmated, or stalemated)
+	// from a single generation of its legal moves.
+	public PositionTree.Status status() {
+		MoveList legalMoves = new MoveList();
+		generateMoves(legalMoves);
+		boolean check = inCheck();
+		if (legalMoves.size() == 0)
+			return check ? PositionTree.Status.CHECKMATE : PositionTree.Status.STALEMATE;
+		return check ? PositionTree.Status.CHECK : PositionTree.Status.NORMAL;
 	}
 	
 	// Determines whether the active player is in check.
-	// This method assumes that attackers have already been computed.
 	public boolean inCheck() {
-		Coordinate activeKingLocation = whiteToMove ? whiteKingLocation : blackKingLocation;
+		int activeKingLocation = whiteToMove ? whiteKingLocation : blackKingLocation;
 		final boolean OPPOSING_PLAYER = false;
 		return squareAttacked(activeKingLocation, OPPOSING_PLAYER);
 	}
@@ -446,23 +1089,21 @@ public class Position {
 	// The position is considered invalid if the opposing king is capturable.
 	// If the opposing player just castled, then any moves targeting the opposing king's
 	// initial square or passed-through square also invalidate the position.
-	// This method assumes that attackers have already been computed.
 	public boolean valid() {
 		// The enemy king should not be capturable.
-		Coordinate opposingKingLocation = whiteToMove ? blackKingLocation : whiteKingLocation;
+		int opposingKingLocation = whiteToMove ? blackKingLocation : whiteKingLocation;
 		final boolean ACTIVE_PLAYER = true;
 		if (squareAttacked(opposingKingLocation, ACTIVE_PLAYER))
 			return false;
 		
 		// The enemy king should not have castled out of or through check.
 		if (justCastled) {
+			int opposingKingRank = Bitboard.rank(opposingKingLocation);
 			int opposingKingInitialFile = 4;
-			Coordinate opposingKingInitialLocation = new Coordinate(opposingKingLocation.rank, opposingKingInitialFile);
-			if (squareAttacked(opposingKingInitialLocation, ACTIVE_PLAYER))
+			if (squareAttacked(Bitboard.square(opposingKingRank, opposingKingInitialFile), ACTIVE_PLAYER))
 				return false;
-			int opposingKingPassThroughFile = (opposingKingInitialFile + opposingKingLocation.file) / 2;
-			Coordinate opposingKingPassThroughLocation = new Coordinate(opposingKingLocation.rank, opposingKingPassThroughFile);
-			if (squareAttacked(opposingKingPassThroughLocation, ACTIVE_PLAYER))
+			int opposingKingPassThroughFile = (opposingKingInitialFile + Bitboard.file(opposingKingLocation)) / 2;
+			if (squareAttacked(Bitboard.square(opposingKingRank, opposingKingPassThroughFile), ACTIVE_PLAYER))
 				return false;
 		}
 		return true;
@@ -478,9 +1119,9 @@ public class Position {
 			for (int column = 0; column < 8; column++) {
 				// From black's perspective, the A file is on the right, not the left.
 				int file = whitePerspective ? column : 7 - column;
-				lineToPrint += "" + pieces[rank][file] + '|';
+				lineToPrint += "" + pieceAt(Bitboard.square(rank, file)) + '|';
 			}
 			System.out.println(lineToPrint);
 		}
 	}
-}
+}
\ No newline at end of file
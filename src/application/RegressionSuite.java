@@ -0,0 +1,91 @@
+package application;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.*;
+import java.util.function.BooleanSupplier;
+
+// Checks behavior that has regressed before and that perft (which only checks the move generator) cannot catch,
+// such as the bot's choices in known positions. Each check prints ok or FAILED, and the program exits with
+// status 1 if any check fails, so it can be run after every change like the perft suite.
+//
+// Usage:
+//		RegressionSuite
+// Nate Hunter - 10/17/2026
+public class RegressionSuite {
+	// The checks by name, in the order they run.
+	private final Map<String, BooleanSupplier> checks = new LinkedHashMap<String, BooleanSupplier>();
+
+	// Creates the suite.
+	public RegressionSuite() {
+		checks.put("Bot promotes a winning pawn at once", RegressionSuite::promotesAtOnce);
+		checks.put("UCI engine survives an invalid position", RegressionSuite::survivesInvalidPosition);
+	}
+
+	public static void main(String[] args) {
+		if (!new RegressionSuite().run())
+			System.exit(1);
+	}
+
+	// Runs every check, printing its result, and returns whether all of them passed.
+	// A check that throws an exception fails.
+	public boolean run() {
+		boolean allPassed = true;
+		for (Map.Entry<String, BooleanSupplier> check : checks.entrySet()) {
+			boolean passed;
+			try {
+				passed = check.getValue().getAsBoolean();
+			} catch (RuntimeException exception) {
+				passed = false;
+			}
+			System.out.println(String.format("%-50s %s", check.getKey(), passed ? "ok" : "FAILED"));
+			allPassed &= passed;
+		}
+		System.out.println(allPassed ? "All checks pass." : "FAILED: some checks failed.");
+		return allPassed;
+	}
+
+	// With a pawn on the seventh rank in a won king and pawn ending, the bot promotes to a queen right away
+	// at every depth and seed, rather than putting it off (which can run into the fifty-move rule).
+	private static boolean promotesAtOnce() {
+		Bitbase.initialize();
+		Position position = Position.fromFen("7k/P7/8/8/8/8/8/K7 w - -");
+		for (int depth = 1; depth <= 6; depth++)
+			for (int seed = 0; seed < 4; seed++) {
+				Bot bot = new Bot(depth, 1, new TranspositionTable(1));
+				bot.setRandomSeed(seed);
+				bot.setRandomMoveChoice(seed % 2 == 0);
+				Move move = bot.move(position);
+				if (move == null || move.getPromotionType() != Piece.Type.QUEEN)
+					return false;
+			}
+		return true;
+	}
+
+	// After a position command with an invalid FEN, the UCI engine reports the error, still answers isready,
+	// and keeps the previous position (so its best move is a legal move of that position).
+	private static boolean survivesInvalidPosition() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		Uci uci = new Uci(new PrintStream(bytes, true), 1, 1);
+		boolean running = uci.processCommand("position startpos moves e2e4")
+			&& uci.processCommand("position fen bad fen")
+			&& uci.processCommand("isready")
+			&& uci.processCommand("go depth 1");
+		uci.stop();
+		List<String> lines = Arrays.asList(bytes.toString().split("\\R"));
+		if (!running || !lines.contains("readyok"))
+			return false;
+		Position position = Position.initialPosition();
+		position.computeAllMoves();
+		for (Move move : position.moves)
+			if (move.coordinateNotation().equals("e2e4"))
+				position = position.nextPosition(move);
+		position.computeAllMoves();
+		for (String line : lines)
+			if (line.startsWith("bestmove "))
+				for (Move move : position.moves)
+					if (line.equals("bestmove " + move.coordinateNotation()))
+						return true;
+		return false;
+	}
+}
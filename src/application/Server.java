@@ -0,0 +1,138 @@
+package application;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Serves the engine to many clients from one long-lived program, instead of a program per game.
+// Clients connect over TCP on localhost, and each connection speaks UCI (see Uci) as if it were an engine
+// of its own, with its own position and transposition table. The searches of every connection share
+// the search threads of BotService (one per core), so the server never runs more searches than cores,
+// and searches beyond that wait their turn.
+//
+// Each connection is read on a thread of its own, which spends nearly all its time blocked waiting for
+// the next command, so hundreds of connections cost hundreds of mostly idle threads but no extra CPU.
+//
+// Besides the UCI commands, a connection may send "stats" to get a line describing the load on the server
+// (see statistics), which LoadGenerator uses to measure queueing and memory per session.
+// Usage:
+//		Server [-port N] [-hash MB]
+// Nate Hunter - 10/17/2026
+public class Server {
+	// The default port to listen on.
+	public static final int DEFAULT_PORT = 7777;
+	// The default transposition table size of each connection in megabytes. Since many connections
+	// share a program, each table is much smaller than a standalone engine's.
+	public static final int DEFAULT_HASH_MEGABYTES = 4;
+	// The number of connections that may wait to be accepted.
+	private static final int CONNECTION_BACKLOG = 256;
+
+	// The socket accepting connections.
+	private final ServerSocket serverSocket;
+	// The transposition table size of each connection in megabytes.
+	private final int hashMegabytes;
+	// The threads reading the connections, one per connection. Daemon threads do not keep the program running.
+	private final ExecutorService connectionThreads = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "Server connection");
+		thread.setDaemon(true);
+		return thread;
+	});
+	// The number of open connections.
+	private final AtomicInteger connections = new AtomicInteger();
+
+	// Creates a server listening on the specified port of the loopback address (so only local clients can
+	// connect), giving each connection a transposition table of the specified size.
+	public Server(int port, int hashMegabytes) throws IOException {
+		serverSocket = new ServerSocket(port, CONNECTION_BACKLOG, InetAddress.getLoopbackAddress());
+		this.hashMegabytes = hashMegabytes;
+	}
+
+	public static void main(String[] args) throws IOException {
+		int port = DEFAULT_PORT;
+		int hashMegabytes = DEFAULT_HASH_MEGABYTES;
+		for (int index = 0; index + 1 < args.length; index += 2) {
+			switch (args[index]) {
+			case "-port": port = Integer.parseInt(args[index + 1]); break;
+			case "-hash": hashMegabytes = Integer.parseInt(args[index + 1]); break;
+			default: throw new IllegalArgumentException("Unknown option: " + args[index]);
+			}
+		}
+		Server server = new Server(port, hashMegabytes);
+		System.out.println("Listening on " + server.getPort() + " with " + BotService.getThreadCount() + " search threads");
+		server.serve();
+	}
+
+	// Gets the port the server listens on.
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	// Accepts connections until the server is closed, handling each on a thread of its own.
+	public void serve() throws IOException {
+		while (!serverSocket.isClosed()) {
+			Socket socket;
+			try {
+				socket = serverSocket.accept();
+			} catch (SocketException exception) {
+				// The server was closed while waiting for a connection.
+				break;
+			}
+			connectionThreads.execute(() -> handleConnection(socket));
+		}
+	}
+
+	// Stops accepting connections. Open connections are served until their clients disconnect.
+	public void close() throws IOException {
+		serverSocket.close();
+	}
+
+	// Reads the commands of a connection until the client quits or disconnects.
+	private void handleConnection(Socket socket) {
+		connections.incrementAndGet();
+		Uci uci = null;
+		try (Socket connection = socket) {
+			connection.setTcpNoDelay(true);
+			BufferedReader input = new BufferedReader(new InputStreamReader(connection.getInputStream()));
+			// Searches write to the output from search threads, so it flushes each line right away.
+			PrintStream output = new PrintStream(connection.getOutputStream(), true);
+			uci = new Uci(output, 1, hashMegabytes);
+			String line;
+			while ((line = input.readLine()) != null) {
+				line = line.trim();
+				if (line.equals("stats"))
+					output.println("info string " + statistics());
+				else if (!uci.processCommand(line))
+					break;
+			}
+		} catch (IOException exception) {
+			// The client disconnected abruptly, which ends the connection like quit does.
+		} finally {
+			// A search still running for a client that left is stopped, freeing its search thread.
+			if (uci != null)
+				uci.stop();
+			connections.decrementAndGet();
+		}
+	}
+
+	// Describes the load on the server: the open connections, the searches started so far, the searches
+	// waiting for a search thread, the average time searches waited, and the heap in use. The heap is
+	// measured after a garbage collection, so the figure is comparable between calls (but the call is slow).
+	public String statistics() {
+		Runtime runtime = Runtime.getRuntime();
+		System.gc();
+		long heapUsed = runtime.totalMemory() - runtime.freeMemory();
+		// Numbers are always written with a decimal point, so clients can parse them in any locale.
+		return String.format(Locale.ROOT, "stats connections %d searches %d waiting %d averagewait %.2f heap %d",
+			connections.get(), BotService.getSearchesStarted(), BotService.getSearchesWaiting(),
+			BotService.getAverageWaitMilliseconds(), heapUsed);
+	}
+}
@@ -34,11 +34,14 @@ public class Square {
 	private Coordinate location;
 	// Whether the square is currently selected.
 	private boolean selected = false;
+	// The arbiter clicks are reported to.
+	private Arbiter arbiter;
 	
-	// Initializes a square with a piece.
-	public Square(Coordinate location, char pieceLetter) {
+	// Initializes a square with a piece, reporting clicks to the specified arbiter.
+	public Square(Coordinate location, char pieceLetter, Arbiter arbiter) {
 		square = new Rectangle(PIXEL_WIDTH, PIXEL_WIDTH);
 		this.location = location;
+		this.arbiter = arbiter;
         if (location.darkSquare())
         	square.setFill(DARK_SQUARE);
         else
@@ -83,7 +86,7 @@ public class Square {
         squareWithPiece.setOnMouseClicked(new EventHandler<MouseEvent>() {
         	@Override
             public void handle(MouseEvent t) {
-        		Arbiter.processClick(location);
+        		arbiter.processClick(location);
             }
         });
         squareWithPiece.setOnMouseEntered(new EventHandler<MouseEvent>() {
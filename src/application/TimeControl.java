@@ -0,0 +1,50 @@
+package application;
+
+// Limits how long a bot may think about a move.
+// The bot deepens its search until the soft limit passes (since another iteration would probably not
+// finish in time), and abandons an unfinished iteration once the hard limit passes.
+// Nate Hunter - 10/17/2026
+public class TimeControl {
+	// Time reserved for the overhead outside the search (e.g. playing the move), in milliseconds.
+	private static final long OVERHEAD_MILLISECONDS = 20;
+	// The number of moves the remaining clock time is assumed to be spread over.
+	private static final int EXPECTED_MOVES_REMAINING = 30;
+	// The most a single move may use of the remaining clock time, as a fraction.
+	private static final double MAXIMUM_CLOCK_FRACTION = 0.25;
+	// How many times the target time a single move may use when an iteration runs long.
+	private static final int HARD_LIMIT_MULTIPLIER = 4;
+
+	// The time after which no new iteration is started, in milliseconds.
+	public final long softLimitMilliseconds;
+	// The time after which the search is stopped, in milliseconds.
+	public final long hardLimitMilliseconds;
+
+	// Creates a time control with the specified limits.
+	private TimeControl(long softLimitMilliseconds, long hardLimitMilliseconds) {
+		this.hardLimitMilliseconds = Math.max(1, hardLimitMilliseconds);
+		this.softLimitMilliseconds = Math.max(1, Math.min(softLimitMilliseconds, this.hardLimitMilliseconds));
+	}
+
+	// Gets a time control for thinking about a move for a fixed time.
+	// Since an iteration usually takes several times longer than the one before, no new iteration is
+	// started once half the time has passed.
+	public static TimeControl moveTime(long milliseconds) {
+		long available = Math.max(1, milliseconds - OVERHEAD_MILLISECONDS);
+		return new TimeControl(available / 2, available);
+	}
+
+	// Gets a time control for playing with a clock, given the time remaining on the clock and the time
+	// added after each move. Each move targets an even share of the remaining time plus most of the increment.
+	public static TimeControl clock(long remainingMilliseconds, long incrementMilliseconds) {
+		long available = Math.max(1, remainingMilliseconds - OVERHEAD_MILLISECONDS);
+		long target = available / EXPECTED_MOVES_REMAINING + incrementMilliseconds * 3 / 4;
+		long maximum = (long)(available * MAXIMUM_CLOCK_FRACTION);
+		return new TimeControl(Math.min(target, maximum), Math.min(target * HARD_LIMIT_MULTIPLIER, maximum));
+	}
+
+	// Describes the time control for logging.
+	@Override
+	public String toString() {
+		return "Soft limit " + softLimitMilliseconds + " ms, hard limit " + hardLimitMilliseconds + " ms";
+	}
+}
@@ -0,0 +1,301 @@
+package application;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Plays a match between two bot configurations without a GUI, to tell whether a change gains or loses
+// playing strength. Games run concurrently, one per worker thread, with single-threaded bots, so the number of
+// games per hour grows with the number of cores. Each opening is played twice with the colors swapped, so
+// neither configuration is favored by the openings.
+//
+// The result is reported as an Elo difference with a 95% confidence interval, and as a sequential probability
+// ratio test (SPRT) between two hypotheses: the difference is elo0 (H0) or elo1 (H1). The match stops as soon
+// as the test accepts either one, which usually takes far fewer games than a fixed-length match.
+//
+// Usage:
+//		Tournament [options] <engine A> <engine B>
+// An engine is a comma-separated list of settings: depth=N, nodes=N (per move), movetime=MS (per move),
+// and hash=MB. For example: Tournament -games 2000 depth=6,nodes=20000 depth=6,nodes=40000
+// Options:
+//		-games N       the most games to play (default 1000)
+//		-threads N     the number of games played at once (default: one per core)
+//		-openings FILE a file of opening positions, one FEN or EPD per line (default: a built-in set)
+//		-elo0 E -elo1 E -alpha A -beta B   the SPRT hypotheses and error rates (default 0, 10, 0.05, 0.05)
+// Nate Hunter - 10/17/2026
+public class Tournament {
+	// The result of a game for engine A.
+	private static enum Result {
+		WIN,
+		DRAW,
+		LOSS
+	}
+
+	// The settings a bot plays with.
+	public static class Engine {
+		// The settings as given, for reporting.
+		public final String description;
+		// The search depth (the maximum depth with a node or time limit).
+		public int depth = 4;
+		// The most positions searched per move (0 for no limit).
+		public long nodes = 0;
+		// The time per move in milliseconds (0 for no limit).
+		public long moveTime = 0;
+		// The transposition table size in megabytes.
+		public int hashMegabytes = 4;
+
+		// Parses settings such as "depth=6,nodes=20000".
+		public Engine(String description) {
+			this.description = description;
+			for (String setting : description.split(",")) {
+				String[] nameAndValue = setting.split("=");
+				if (nameAndValue.length != 2)
+					throw new IllegalArgumentException("Expected name=value: " + setting);
+				String value = nameAndValue[1];
+				switch (nameAndValue[0]) {
+				case "depth": depth = Integer.parseInt(value); break;
+				case "nodes": nodes = Long.parseLong(value); break;
+				case "movetime": moveTime = Long.parseLong(value); break;
+				case "hash": hashMegabytes = Integer.parseInt(value); break;
+				default: throw new IllegalArgumentException("Unknown engine setting: " + setting);
+				}
+			}
+		}
+
+		// Creates a single-threaded bot with these settings, using the specified transposition table.
+		public Bot createBot(TranspositionTable table, long seed) {
+			Bot bot = new Bot(depth, 1, table);
+			bot.setNodeLimit(nodes);
+			if (moveTime > 0)
+				bot.setTimeControl(TimeControl.moveTime(moveTime));
+			bot.setRandomSeed(seed);
+			return bot;
+		}
+	}
+
+	// The opening positions used when no file is given: a spread of common openings a few moves in.
+	private static final String[] DEFAULT_OPENINGS = {
+		"rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1",
+		"rnbqkbnr/pppppppp/8/8/3P4/8/PPP1PPPP/RNBQKBNR b KQkq - 0 1",
+		"rnbqkbnr/pp1ppppp/8/2p5/4P3/8/PPPP1PPP/RNBQKBNR w KQkq - 0 2",
+		"rnbqkbnr/pppp1ppp/8/4p3/4P3/8/PPPP1PPP/RNBQKBNR w KQkq - 0 2",
+		"rnbqkbnr/pppp1ppp/4p3/8/4P3/8/PPPP1PPP/RNBQKBNR w KQkq - 0 2",
+		"rnbqkbnr/pp1ppppp/2p5/8/4P3/8/PPPP1PPP/RNBQKBNR w KQkq - 0 2",
+		"rnbqkb1r/pppppppp/5n2/8/3P4/8/PPP1PPPP/RNBQKBNR w KQkq - 1 2",
+		"rnbqkbnr/ppp1pppp/8/3p4/3P4/8/PPP1PPPP/RNBQKBNR w KQkq - 0 2",
+		"rnbqkbnr/pppppppp/8/8/2P5/8/PP1PPPPP/RNBQKBNR b KQkq - 0 1",
+		"rnbqkbnr/pppppppp/8/8/8/5N2/PPPPPPPP/RNBQKB1R b KQkq - 1 1",
+		"r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 3",
+		"rnbqkb1r/pppp1ppp/4pn2/8/2PP4/8/PP2PPPP/RNBQKBNR w KQkq - 0 3",
+		"rnbqkbnr/ppp2ppp/4p3/3p4/3PP3/8/PPP2PPP/RNBQKBNR w KQkq - 0 3",
+		"rnbqkbnr/pp2pppp/2p5/3p4/3PP3/8/PPP2PPP/RNBQKBNR w KQkq - 0 3",
+		"rnbqkbnr/pp1ppppp/8/2p5/4P3/5N2/PPPP1PPP/RNBQKB1R b KQkq - 1 2",
+		"rnbqkb1r/pppppp1p/5np1/8/2PP4/8/PP2PPPP/RNBQKBNR w KQkq - 0 3",
+	};
+	// The most plies a game may last before it is scored as a draw.
+	private static final int MAXIMUM_PLIES = 400;
+	// How often (in games) the standings are printed.
+	private static final int REPORT_INTERVAL = 20;
+
+	// The engines playing the match.
+	private final Engine engineA, engineB;
+	// The opening positions.
+	private final List<String> openings;
+	// The transposition tables of each worker thread (one per engine), reused from game to game.
+	private final ThreadLocal<TranspositionTable[]> workerTables;
+
+	// The number of games engine A won, drew, and lost so far.
+	private int wins, draws, losses;
+
+	// Creates a match between the engines from the specified openings.
+	public Tournament(Engine engineA, Engine engineB, List<String> openings) {
+		this.engineA = engineA;
+		this.engineB = engineB;
+		this.openings = openings;
+		workerTables = ThreadLocal.withInitial(() -> new TranspositionTable[] {
+			new TranspositionTable(engineA.hashMegabytes), new TranspositionTable(engineB.hashMegabytes)
+		});
+	}
+
+	public static void main(String[] args) throws IOException {
+		int games = 1000;
+		int threads = Runtime.getRuntime().availableProcessors();
+		List<String> openings = Arrays.asList(DEFAULT_OPENINGS);
+		double elo0 = 0, elo1 = 10, alpha = 0.05, beta = 0.05;
+		List<String> engines = new ArrayList<String>();
+		for (int index = 0; index < args.length; index++) {
+			switch (args[index]) {
+			case "-games": games = Integer.parseInt(args[++index]); break;
+			case "-threads": threads = Integer.parseInt(args[++index]); break;
+			case "-openings": openings = readOpenings(args[++index]); break;
+			case "-elo0": elo0 = Double.parseDouble(args[++index]); break;
+			case "-elo1": elo1 = Double.parseDouble(args[++index]); break;
+			case "-alpha": alpha = Double.parseDouble(args[++index]); break;
+			case "-beta": beta = Double.parseDouble(args[++index]); break;
+			default: engines.add(args[index]); break;
+			}
+		}
+		if (engines.size() != 2) {
+			System.err.println("Usage: Tournament [-games N] [-threads N] [-openings FILE] [-elo0 E] [-elo1 E] [-alpha A] [-beta B] <engine A> <engine B>");
+			System.err.println("An engine is a list of settings such as depth=6,nodes=20000,movetime=100,hash=4");
+			return;
+		}
+		Tournament tournament = new Tournament(new Engine(engines.get(0)), new Engine(engines.get(1)), openings);
+		tournament.play(games, threads, elo0, elo1, alpha, beta);
+	}
+
+	// Reads opening positions from a file with one FEN or EPD per line. Only the first four fields are used,
+	// since EPD lines carry operations (e.g. "bm Nf3;") in place of the move counters.
+	private static List<String> readOpenings(String path) throws IOException {
+		List<String> openings = new ArrayList<String>();
+		for (String line : Files.readAllLines(Paths.get(path))) {
+			String[] fields = line.trim().split("\\s+");
+			if (fields.length >= 4 && !line.trim().startsWith("#"))
+				openings.add(String.join(" ", Arrays.copyOf(fields, 4)));
+		}
+		return openings;
+	}
+
+	// Plays up to the specified number of games on the specified number of threads, stopping early once the SPRT
+	// accepts a hypothesis, and prints the standings as games finish.
+	public void play(int games, int threads, double elo0, double elo1, double alpha, double beta) {
+		System.out.println("Engine A: " + engineA.description + "\nEngine B: " + engineB.description);
+		System.out.println(games + " games at most, " + threads + " threads, " + openings.size() + " openings, "
+			+ String.format("SPRT elo0=%.1f elo1=%.1f alpha=%.2f beta=%.2f", elo0, elo1, alpha, beta));
+		double lowerBound = Math.log(beta / (1 - alpha));
+		double upperBound = Math.log((1 - beta) / alpha);
+		// The endgame tables are generated up front, since games are adjudicated with them from the first move.
+		Bitbase.initialize();
+
+		ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "Tournament game");
+			thread.setDaemon(true);
+			return thread;
+		});
+		CompletionService<Result> results = new ExecutorCompletionService<Result>(workers);
+		List<Future<Result>> pendingGames = new ArrayList<Future<Result>>();
+		for (int game = 0; game < games; game++) {
+			// Consecutive games play the same opening with the colors swapped.
+			final String opening = openings.get((game / 2) % openings.size());
+			final boolean engineAWhite = (game % 2 == 0);
+			final long seed = game;
+			pendingGames.add(results.submit(() -> playGame(opening, engineAWhite, seed)));
+		}
+
+		long startTime = System.nanoTime();
+		String decision = "no decision";
+		for (int finished = 1; finished <= games; finished++) {
+			Result result;
+			try {
+				result = results.take().get();
+			} catch (InterruptedException | ExecutionException exception) {
+				throw new IllegalStateException("A game failed", exception);
+			}
+			switch (result) {
+			case WIN: wins++; break;
+			case DRAW: draws++; break;
+			case LOSS: losses++; break;
+			}
+			double logLikelihoodRatio = logLikelihoodRatio(elo0, elo1);
+			if (logLikelihoodRatio >= upperBound)
+				decision = "H1 accepted (engine A is stronger by about elo1)";
+			else if (logLikelihoodRatio <= lowerBound)
+				decision = "H0 accepted (engine A is not stronger by elo1)";
+			boolean decided = !decision.equals("no decision");
+			if (finished % REPORT_INTERVAL == 0 || finished == games || decided)
+				printStandings(logLikelihoodRatio, lowerBound, upperBound, startTime);
+			if (decided)
+				break;
+		}
+		// Games not yet started are cancelled. Games in progress run on daemon threads and are abandoned.
+		for (Future<Result> pendingGame : pendingGames)
+			pendingGame.cancel(false);
+		workers.shutdown();
+		System.out.println("Result: " + decision);
+	}
+
+	// Plays a game from the opening, returning the result for engine A.
+	private Result playGame(String opening, boolean engineAWhite, long seed) {
+		TranspositionTable[] tables = workerTables.get();
+		for (TranspositionTable table : tables)
+			table.clear();
+		Bot botA = engineA.createBot(tables[0], seed);
+		Bot botB = engineB.createBot(tables[1], seed);
+		Position position = Position.fromFen(opening);
+		for (int ply = 0; ply < MAXIMUM_PLIES; ply++) {
+			switch (position.status()) {
+			case CHECKMATE:
+				// The player to move is checkmated.
+				return (position.whiteToMove == engineAWhite) ? Result.LOSS : Result.WIN;
+			case STALEMATE:
+				return Result.DRAW;
+			default: break;
+			}
+			if (position.isThreefoldRepetition() || position.isFiftyMoveDraw() || tablebaseDraw(position))
+				return Result.DRAW;
+			Bot bot = (position.whiteToMove == engineAWhite) ? botA : botB;
+			position.playMove(bot.move(position));
+		}
+		return Result.DRAW;
+	}
+
+	// Determines whether the game can be adjudicated as a draw by the endgame tables (see Bitbase): bare kings,
+	// or a position the tables show is drawn with perfect play, which covers a king and a minor piece against
+	// a king as well as drawn KPK, KRK, and KQK positions. The tables are generated before the games (see play).
+	private static boolean tablebaseDraw(Position position) {
+		return Long.bitCount(position.getOccupancy()) == 2 || Bitbase.probe(position) == Bitbase.Result.DRAW;
+	}
+
+	// Computes the log-likelihood ratio of the results so far between H1 (engine A is elo1 stronger) and
+	// H0 (elo0 stronger), using the normal approximation to the distribution of the average game score.
+	private double logLikelihoodRatio(double elo0, double elo1) {
+		int games = wins + draws + losses;
+		double variance = scoreVariance() / games;
+		// Until the results differ, there is no estimate of their spread.
+		if (variance == 0)
+			return 0;
+		double score = score();
+		double score0 = expectedScore(elo0), score1 = expectedScore(elo1);
+		return (score1 - score0) * (2 * score - score0 - score1) / (2 * variance);
+	}
+
+	// Gets engine A's average score per game (1 for a win, 0.5 for a draw, 0 for a loss).
+	private double score() {
+		return (wins + 0.5 * draws) / (wins + draws + losses);
+	}
+	// Gets the variance of engine A's score per game.
+	private double scoreVariance() {
+		double score = score();
+		return (wins * Math.pow(1 - score, 2) + draws * Math.pow(0.5 - score, 2) + losses * Math.pow(score, 2))
+			/ (wins + draws + losses);
+	}
+
+	// Gets the expected score of a player the specified number of Elo points stronger than the opponent.
+	private static double expectedScore(double elo) {
+		return 1 / (1 + Math.pow(10, -elo / 400));
+	}
+	// Gets the Elo difference corresponding to an expected score.
+	private static double elo(double score) {
+		score = Math.min(Math.max(score, 1e-6), 1 - 1e-6);
+		return -400 * Math.log10(1 / score - 1);
+	}
+
+	// Prints the results so far, the Elo difference with its 95% confidence interval, the SPRT state,
+	// and the rate of play.
+	private void printStandings(double logLikelihoodRatio, double lowerBound, double upperBound, long startTime) {
+		int games = wins + draws + losses;
+		double score = score();
+		double margin = 1.96 * Math.sqrt(scoreVariance() / games);
+		double hours = (System.nanoTime() - startTime) / 3.6e12;
+		System.out.println(String.format("Games %d: +%d =%d -%d, score %.1f%%, Elo %+.1f [%+.1f, %+.1f], LLR %.2f [%.2f, %.2f], %.0f games/hour",
+			games, wins, draws, losses, 100 * score, elo(score), elo(score - margin), elo(score + margin),
+			logLikelihoodRatio, lowerBound, upperBound, games / hours));
+	}
+}
@@ -0,0 +1,160 @@
+package application;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+// A fixed-size hash table of search results, keyed by position (Zobrist) key.
+// Many move orders reach the same position (transpositions), so remembering each position's
+// result lets the search reuse it instead of searching the position again.
+//
+// Each entry is packed into a single long (see pack) and stored next to its key XORed with the entry.
+// This makes the table lock-free and safe to share between search threads: if two threads write
+// the same slot at once and a reader sees the key of one write with the data of the other,
+// the XOR check fails and the entry is treated as missing rather than returning corrupt data.
+// Nate Hunter - 10/16/2026
+public class TranspositionTable {
+	// How a stored score relates to the true score of the position.
+	public static enum Bound {
+		// The score is exact.
+		EXACT,
+		// The true score is at least the stored score (the search failed high).
+		LOWER,
+		// The true score is at most the stored score (the search failed low).
+		UPPER
+	}
+
+	// The bounds in ordinal order (cached, since Bound.values() copies the array on every call).
+	private static final Bound[] BOUNDS = Bound.values();
+
+	// The result of a probe that found no entry.
+	public static final long NO_ENTRY = 0L;
+	// The stored move of an entry without a best move.
+	public static final int NO_MOVE = 0;
+
+	// The layout of a packed entry, from the lowest bits:
+	// 16 bits of score, 8 bits of depth, 2 bits of bound, 24 bits of move, 8 bits of generation, and 1 bit
+	// that is always set so a stored entry is never equal to NO_ENTRY.
+	private static final int DEPTH_SHIFT = 16;
+	private static final int BOUND_SHIFT = 24;
+	private static final int MOVE_SHIFT = 26;
+	private static final int GENERATION_SHIFT = 50;
+	private static final long PRESENT = 1L << 58;
+
+	// The number of bytes used per entry (the key and the packed entry).
+	private static final int BYTES_PER_ENTRY = 16;
+	// Each key maps to a bucket of two entries: the first keeps the deepest result for the bucket,
+	// and the second always takes the latest result that the first would not.
+	private static final int ENTRIES_PER_BUCKET = 2;
+	// The most buckets a table can have, since all its slots must fit in a single array (8 GB of entries).
+	private static final long MAXIMUM_BUCKETS = 1L << 28;
+
+	// The entries, stored as alternating (key XOR entry, entry) pairs.
+	private final long[] slots;
+	// The mask selecting a bucket from a key.
+	private final long bucketMask;
+	// The generation of the current search. Entries from earlier searches are replaced first.
+	private volatile int generation;
+
+	// Statistics on how often probes find a usable entry.
+	private final LongAdder probes = new LongAdder();
+	private final LongAdder hits = new LongAdder();
+
+	// Creates a table using about the specified number of megabytes (rounded down to a power of two entries,
+	// and at most MAXIMUM_BUCKETS buckets).
+	public TranspositionTable(int megabytes) {
+		long entries = Math.max(ENTRIES_PER_BUCKET, (long)megabytes * 1024 * 1024 / BYTES_PER_ENTRY);
+		long buckets = Math.min(MAXIMUM_BUCKETS, Long.highestOneBit(entries / ENTRIES_PER_BUCKET));
+		slots = new long[(int)(buckets * ENTRIES_PER_BUCKET * 2)];
+		bucketMask = buckets - 1;
+	}
+
+	// Starts a new search, so that entries from earlier searches are considered stale.
+	public void newSearch() {
+		generation = (generation + 1) & 0xFF;
+	}
+
+	// Removes every entry and resets the statistics.
+	public void clear() {
+		Arrays.fill(slots, 0L);
+		probes.reset();
+		hits.reset();
+	}
+
+	// Looks up the entry for the specified key, returning NO_ENTRY if the table does not hold it.
+	public long probe(long key) {
+		probes.increment();
+		int bucket = bucketIndex(key);
+		for (int slot = bucket; slot < bucket + ENTRIES_PER_BUCKET * 2; slot += 2) {
+			long entry = slots[slot + 1];
+			if ((slots[slot] ^ entry) == key && entry != NO_ENTRY) {
+				hits.increment();
+				return entry;
+			}
+		}
+		return NO_ENTRY;
+	}
+
+	// Stores a search result for the specified key.
+	public void store(long key, int depth, int score, Bound bound, int move) {
+		int bucket = bucketIndex(key);
+		long deepEntry = slots[bucket + 1];
+		boolean sameKey = (slots[bucket] ^ deepEntry) == key;
+		// Replace the deepest entry if the new result is at least as deep, is for the same position,
+		// or the stored result is from an earlier search; otherwise use the always-replace entry.
+		int slot = bucket;
+		if (!sameKey && deepEntry != NO_ENTRY && generation(deepEntry) == generation && depth(deepEntry) > depth)
+			slot = bucket + 2;
+		long entry = pack(depth, score, bound, move);
+		slots[slot] = key ^ entry;
+		slots[slot + 1] = entry;
+	}
+
+	// Gets the index of the first slot of the bucket for the specified key.
+	private int bucketIndex(long key) {
+		return (int)(key & bucketMask) * ENTRIES_PER_BUCKET * 2;
+	}
+
+	// Packs a search result into a single long.
+	private long pack(int depth, int score, Bound bound, int move) {
+		return (score & 0xFFFFL)
+			| ((long)(depth & 0xFF) << DEPTH_SHIFT)
+			| ((long)bound.ordinal() << BOUND_SHIFT)
+			| ((long)(move & 0xFFFFFF) << MOVE_SHIFT)
+			| ((long)generation << GENERATION_SHIFT)
+			| PRESENT;
+	}
+
+	// Gets the score of a packed entry.
+	public static int score(long entry) {
+		return (short)entry;
+	}
+	// Gets the search depth of a packed entry.
+	public static int depth(long entry) {
+		return (int)(entry >>> DEPTH_SHIFT) & 0xFF;
+	}
+	// Gets the bound of a packed entry.
+	public static Bound bound(long entry) {
+		return BOUNDS[(int)(entry >>> BOUND_SHIFT) & 3];
+	}
+	// Gets the best move of a packed entry (NO_MOVE if there is none).
+	public static int move(long entry) {
+		return (int)(entry >>> MOVE_SHIFT) & 0xFFFFFF;
+	}
+	// Gets the search generation of a packed entry.
+	private static int generation(long entry) {
+		return (int)(entry >>> GENERATION_SHIFT) & 0xFF;
+	}
+
+	// Gets the fraction of probes that found an entry.
+	public double hitRate() {
+		long probeCount = probes.sum();
+		return (probeCount == 0) ? 0 : (double)hits.sum() / probeCount;
+	}
+
+	// Summarizes the table statistics for logging.
+	@Override
+	public String toString() {
+		return String.format("Hash: %d MB, %d probes, %.1f%% hits",
+			(long)slots.length * Long.BYTES / (1024 * 1024), probes.sum(), 100 * hitRate());
+	}
+}
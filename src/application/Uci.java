@@ -0,0 +1,233 @@
+package application;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Runs the bot as a headless engine speaking the Universal Chess Interface (UCI) protocol over
+// standard input and output, so it can play under chess GUIs and tournament managers without a window.
+// Nothing here touches JavaFX, so the engine starts without initializing a toolkit:
+//		java -cp <classes> application.Uci
+//
+// Supported commands: uci, isready, ucinewgame, position (startpos or fen, then moves),
+// go (depth, nodes, movetime, wtime/btime/winc/binc, infinite), stop, and quit.
+// Searches run in the background (see BotService), so stop is read while the bot thinks.
+// Nate Hunter - 10/17/2026
+public class Uci {
+	// The name reported to the GUI.
+	private static final String ENGINE_NAME = "Chess";
+	// The depth searched by go infinite (and go with a clock), which runs until stopped (or out of time).
+	private static final int UNLIMITED_DEPTH = 64;
+	// The default transposition table size in megabytes.
+	private static final int HASH_MEGABYTES = 64;
+
+	// The output to the GUI.
+	private final PrintStream output;
+	// The number of threads each search uses.
+	private final int threads;
+	// The transposition table size in megabytes.
+	private final int hashMegabytes;
+	// The transposition table, kept between searches of the same game.
+	private TranspositionTable table;
+	// The position set by the latest position command.
+	private Position position = Position.initialPosition();
+	// The bot running the current search, and the sending of its best move, or null when not searching.
+	private Bot bot = null;
+	private CompletableFuture<Void> pendingBestMove = null;
+
+	// Creates an engine writing to the specified output.
+	public Uci(PrintStream output) {
+		this(output, Bot.DEFAULT_THREADS, HASH_MEGABYTES);
+	}
+	// Creates an engine writing to the specified output, searching with the specified number of threads
+	// and transposition table size (e.g. one thread and a small table when many engines share a program; see Server).
+	public Uci(PrintStream output, int threads, int hashMegabytes) {
+		this.output = output;
+		this.threads = threads;
+		this.hashMegabytes = hashMegabytes;
+		table = new TranspositionTable(hashMegabytes);
+	}
+
+	public static void main(String[] args) throws IOException {
+		Uci uci = new Uci(System.out);
+		BufferedReader input = new BufferedReader(new InputStreamReader(System.in));
+		String line;
+		while ((line = input.readLine()) != null)
+			if (!uci.processCommand(line.trim()))
+				break;
+		uci.stop();
+	}
+
+	// Processes a single command. Returns false once the engine should quit.
+	// A command with an invalid argument (e.g. a malformed FEN or number) is reported to the GUI and otherwise
+	// ignored, leaving the position as it was, so one bad command does not end the engine (or a Server connection).
+	public boolean processCommand(String command) {
+		String[] tokens = command.split("\\s+");
+		try {
+			switch (tokens[0]) {
+			case "uci":
+				send("id name " + ENGINE_NAME);
+				send("id author Nate Hunter");
+				send("uciok");
+				break;
+			case "isready":
+				send("readyok");
+				break;
+			case "ucinewgame":
+				stop();
+				table = new TranspositionTable(hashMegabytes);
+				position = Position.initialPosition();
+				break;
+			case "position":
+				stop();
+				setPosition(tokens);
+				break;
+			case "go":
+				stop();
+				go(tokens);
+				break;
+			case "stop":
+				stop();
+				break;
+			case "quit":
+				return false;
+			default:
+				// Unknown commands are ignored, as the protocol requires.
+				break;
+			}
+		} catch (IllegalArgumentException exception) {
+			send("info string " + exception.getMessage());
+		}
+		return true;
+	}
+
+	// Sets up the position: "position startpos [moves ...]" or "position fen <fen> [moves ...]".
+	private void setPosition(String[] tokens) {
+		int movesIndex = tokens.length;
+		for (int index = 1; index < tokens.length; index++)
+			if (tokens[index].equals("moves")) {
+				movesIndex = index;
+				break;
+			}
+		if (tokens.length > 1 && tokens[1].equals("fen"))
+			position = Position.fromFen(String.join(" ", Arrays.copyOfRange(tokens, 2, movesIndex)));
+		else position = Position.initialPosition();
+		for (int index = movesIndex + 1; index < tokens.length; index++) {
+			Move move = findMove(position, tokens[index]);
+			if (move == null) {
+				send("info string Illegal move " + tokens[index]);
+				return;
+			}
+			position.playMove(move);
+		}
+	}
+
+	// Finds the legal move of the position with the specified coordinate notation (e.g. e2e4 or e7e8q),
+	// or returns null if there is none.
+	private static Move findMove(Position position, String notation) {
+		MoveList moves = new MoveList();
+		position.generateMoves(moves);
+		for (int index = 0; index < moves.size(); index++)
+			if (Move.coordinateNotation(moves.get(index)).equals(notation))
+				return position.toMove(moves.get(index));
+		return null;
+	}
+
+	// Starts searching the position: "go [depth N] [nodes N] [movetime MS] [wtime MS btime MS winc MS binc MS] [infinite]".
+	// The best move is sent once the search finishes or is stopped.
+	private void go(String[] tokens) {
+		int depth = UNLIMITED_DEPTH;
+		TimeControl timeControl = null;
+		long nodeLimit = 0;
+		long remainingMilliseconds = -1, incrementMilliseconds = 0;
+		for (int index = 1; index + 1 < tokens.length; index++) {
+			String value = tokens[index + 1];
+			switch (tokens[index]) {
+			case "depth":
+				depth = Integer.parseInt(value);
+				break;
+			case "nodes":
+				nodeLimit = Long.parseLong(value);
+				break;
+			case "movetime":
+				timeControl = TimeControl.moveTime(Long.parseLong(value));
+				break;
+			case "wtime":
+				if (position.whiteToMove)
+					remainingMilliseconds = Long.parseLong(value);
+				break;
+			case "btime":
+				if (!position.whiteToMove)
+					remainingMilliseconds = Long.parseLong(value);
+				break;
+			case "winc":
+				if (position.whiteToMove)
+					incrementMilliseconds = Long.parseLong(value);
+				break;
+			case "binc":
+				if (!position.whiteToMove)
+					incrementMilliseconds = Long.parseLong(value);
+				break;
+			default: break;
+			}
+		}
+		if (timeControl == null && remainingMilliseconds >= 0)
+			timeControl = TimeControl.clock(remainingMilliseconds, incrementMilliseconds);
+
+		Bot searchBot = new Bot(depth, threads, table);
+		searchBot.setTimeControl(timeControl);
+		searchBot.setNodeLimit(nodeLimit);
+		// The best move sent must be the first move of the principal variation sent with it.
+		searchBot.setRandomMoveChoice(false);
+		searchBot.setIterationListener(this::sendInfo);
+		Position searchPosition = position;
+		bot = searchBot;
+		pendingBestMove = BotService.search(searchBot, searchPosition).thenAccept(bestMove -> {
+			// A search stopped before its first iteration completes has no move, so any legal move is sent.
+			if (bestMove == null) {
+				searchPosition.computeAllMoves();
+				bestMove = searchPosition.moves.isEmpty() ? null : searchPosition.moves.get(0);
+			}
+			send("bestmove " + (bestMove == null ? "0000" : bestMove.coordinateNotation()));
+		});
+	}
+
+	// Stops the current search (if any) and waits for its best move to be sent,
+	// so the best move always comes before the response to the next command.
+	public void stop() {
+		if (pendingBestMove == null)
+			return;
+		bot.stop();
+		pendingBestMove.join();
+		bot = null;
+		pendingBestMove = null;
+	}
+
+	// Sends the progress of the search after each iteration.
+	private void sendInfo(int depth, int evaluation, long nodes, long milliseconds, List<Move> principalVariation) {
+		String score;
+		if (Bot.isCheckmateEvaluation(evaluation)) {
+			int moves = (Bot.pliesToCheckmate(evaluation) + 1) / 2;
+			score = "mate " + (evaluation > 0 ? moves : -moves);
+		}
+		// Evaluations are in pawns, and UCI scores in hundredths of a pawn.
+		else score = "cp " + evaluation * 100;
+		StringBuilder pv = new StringBuilder();
+		for (Move move : principalVariation)
+			pv.append(' ').append(move.coordinateNotation());
+		long nodesPerSecond = nodes * 1000 / Math.max(1, milliseconds);
+		send("info depth " + depth + " score " + score + " nodes " + nodes + " nps " + nodesPerSecond
+			+ " time " + milliseconds + " pv" + pv);
+	}
+
+	// Sends a line to the GUI. Lines come from both the input thread and the search thread,
+	// so sending is synchronized to keep them whole.
+	private synchronized void send(String line) {
+		output.println(line);
+		output.flush();
+	}
+}
@@ -0,0 +1,33 @@
+package application;
+
+import java.util.Random;
+
+// Random keys for Zobrist hashing, which identifies a position with a single 64-bit key.
+// The key of a position is the XOR of the keys of its features (each piece on its square, the castling
+// rights, the en passant file, and the side to move). Since XOR undoes itself, a move can update the key
+// incrementally by toggling only the features it changes.
+// Nate Hunter - 10/16/2026
+public class Zobrist {
+	// The keys for each piece (indexed by Piece.index) on each square.
+	public static final long[][] PIECE_SQUARE = new long[Piece.COUNT][64];
+	// The keys for each combination of castling rights (packed as bits; see Position.castlingRights).
+	public static final long[] CASTLING_RIGHTS = new long[16];
+	// The keys for each file in which an en passant move would be valid.
+	public static final long[] EN_PASSANT_FILE = new long[8];
+	// The key toggled whenever the side to move changes (included when black is to move).
+	public static final long BLACK_TO_MOVE;
+
+	// A fixed seed keeps keys identical between runs, so keys can be logged and compared.
+	private static final long SEED = 0x5EED_C4E55L;
+	static {
+		Random random = new Random(SEED);
+		for (int piece = 0; piece < Piece.COUNT; piece++)
+			for (int square = 0; square < 64; square++)
+				PIECE_SQUARE[piece][square] = random.nextLong();
+		for (int castlingRights = 0; castlingRights < 16; castlingRights++)
+			CASTLING_RIGHTS[castlingRights] = random.nextLong();
+		for (int file = 0; file < 8; file++)
+			EN_PASSANT_FILE[file] = random.nextLong();
+		BLACK_TO_MOVE = random.nextLong();
+	}
+}